@@ -0,0 +1,90 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.tools4j.metric.api.Printable;
+import org.tools4j.metric.basic.AvgMetric;
+import org.tools4j.metric.basic.GroupPrintable;
+import org.tools4j.metric.basic.MaxMetric;
+import org.tools4j.metric.basic.MinMetric;
+import org.tools4j.metric.basic.SumMetric;
+import org.tools4j.metric.encode.ByteBufferTextOutput;
+import org.tools4j.metric.encode.StringBuilderTextOutput;
+
+/**
+ * Benchmarks {@link Printable#print(org.tools4j.metric.api.TextOutput)} of a {@link GroupPrintable} into a reused
+ * string builder and a reused direct byte buffer.
+ * Printing is thread confined, hence multi-threaded runs measure scalability rather than contention.
+ */
+public abstract class PrintBenchmark {
+
+    @State(Scope.Thread)
+    public static class Group {
+        final StringBuilderTextOutput stringOutput = new StringBuilderTextOutput(new StringBuilder(256));
+        final ByteBufferTextOutput bufferOutput = new ByteBufferTextOutput(256);
+        Printable printable;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            final SumMetric sum = new SumMetric();
+            final MinMetric min = new MinMetric();
+            final MaxMetric max = new MaxMetric();
+            final AvgMetric avg = new AvgMetric();
+            for (int i = 1; i <= 1000; i++) {
+                sum.record(i * 1.25);
+                min.record(i * 1.25);
+                max.record(i * 1.25);
+                avg.record(i * 1.25);
+            }
+            printable = new GroupPrintable("latency:", " ", sum, min, max, avg);
+        }
+    }
+
+    @Benchmark
+    public StringBuilderTextOutput groupPrint(final Group group) {
+        final StringBuilderTextOutput output = group.stringOutput;
+        output.output().setLength(0);
+        group.printable.print(output);
+        return output;
+    }
+
+    @Benchmark
+    public ByteBufferTextOutput groupEncode(final Group group) {
+        final ByteBufferTextOutput output = group.bufferOutput.clear();
+        group.printable.print(output);
+        return output;
+    }
+
+    @Threads(1)
+    public static class SingleThreaded extends PrintBenchmark {}
+
+    @Threads(Threads.MAX)
+    public static class MultiThreaded extends PrintBenchmark {}
+}
@@ -0,0 +1,255 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.tools4j.metric.api.Repository;
+import org.tools4j.metric.basic.AvgMetric;
+import org.tools4j.metric.basic.HistogramMetric;
+import org.tools4j.metric.basic.LongSumMetric;
+import org.tools4j.metric.basic.MaxMetric;
+import org.tools4j.metric.basic.MeanVarianceMetric;
+import org.tools4j.metric.basic.MinMetric;
+import org.tools4j.metric.basic.StatsMetric;
+import org.tools4j.metric.basic.SumMetric;
+import org.tools4j.metric.concurrent.ConcurrentAvgMetric;
+import org.tools4j.metric.concurrent.ConcurrentMaxMetric;
+import org.tools4j.metric.concurrent.ConcurrentMinMetric;
+import org.tools4j.metric.concurrent.ConcurrentSumMetric;
+import org.tools4j.metric.concurrent.SeqLockAvgMetric;
+import org.tools4j.metric.concurrent.SeqLockMeanVarianceMetric;
+import org.tools4j.metric.concurrent.ShardedRepository;
+import org.tools4j.metric.concurrent.SingleWriterRateCounterMetric;
+import org.tools4j.metric.concurrent.StripedRateCounterMetric;
+
+/**
+ * Benchmarks {@code record(double)} of all metrics.  Basic metrics are thread confined and measure the cost of a
+ * single record call, concurrent metrics are shared by all benchmark threads and measure contention.
+ */
+public abstract class RecordBenchmark {
+
+    @State(Scope.Thread)
+    public static class Values {
+        private int counter;
+
+        double next() {
+            return (counter++ & 1023) + 1;
+        }
+
+        long nextLong() {
+            return (counter++ & 1023) + 1;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class BasicMetrics {
+        SumMetric sum;
+        MinMetric min;
+        MaxMetric max;
+        AvgMetric avg;
+        MeanVarianceMetric meanVariance;
+        HistogramMetric histogram;
+        StatsMetric stats;
+        LongSumMetric longSum;
+        SingleWriterRateCounterMetric counter;
+        SeqLockAvgMetric seqLockAvg;
+        SeqLockMeanVarianceMetric seqLockMeanVariance;
+        GroupedMetrics grouped;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            sum = new SumMetric();
+            min = new MinMetric();
+            max = new MaxMetric();
+            avg = new AvgMetric();
+            meanVariance = new MeanVarianceMetric();
+            histogram = new HistogramMetric();
+            stats = new StatsMetric();
+            longSum = new LongSumMetric();
+            counter = new SingleWriterRateCounterMetric();
+            seqLockAvg = new SeqLockAvgMetric();
+            seqLockMeanVariance = new SeqLockMeanVarianceMetric();
+            grouped = new GroupedMetrics();
+        }
+    }
+
+    /**
+     * Separate metrics fed with the same values as {@link StatsMetric}, for comparison.
+     */
+    static class GroupedMetrics {
+        final SumMetric sum = new SumMetric();
+        final MinMetric min = new MinMetric();
+        final MaxMetric max = new MaxMetric();
+        final MeanVarianceMetric meanVariance = new MeanVarianceMetric();
+    }
+
+    @State(Scope.Benchmark)
+    public static class ConcurrentMetrics {
+        ConcurrentSumMetric sum;
+        ConcurrentMinMetric min;
+        ConcurrentMaxMetric max;
+        ConcurrentAvgMetric avg;
+        StripedRateCounterMetric counter;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            sum = new ConcurrentSumMetric();
+            min = new ConcurrentMinMetric();
+            max = new ConcurrentMaxMetric();
+            avg = new ConcurrentAvgMetric();
+            counter = new StripedRateCounterMetric();
+        }
+    }
+
+    public enum Key {
+        SUM
+    }
+
+    @State(Scope.Benchmark)
+    public static class ShardedMetrics {
+        ShardedRepository<Key, SumMetric> repository;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            repository = ShardedRepository.forEnum(Runtime.getRuntime().availableProcessors(), Key.class,
+                    key -> new SumMetric());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Shard {
+        Repository<Key, SumMetric> shard;
+
+        @Setup(Level.Trial)
+        public void setup(final ShardedMetrics metrics) {
+            shard = metrics.repository.register();
+        }
+    }
+
+    @Benchmark
+    public void sum(final BasicMetrics metrics, final Values values) {
+        metrics.sum.record(values.next());
+    }
+
+    @Benchmark
+    public void min(final BasicMetrics metrics, final Values values) {
+        metrics.min.record(values.next());
+    }
+
+    @Benchmark
+    public void max(final BasicMetrics metrics, final Values values) {
+        metrics.max.record(values.next());
+    }
+
+    @Benchmark
+    public void avg(final BasicMetrics metrics, final Values values) {
+        metrics.avg.record(values.next());
+    }
+
+    @Benchmark
+    public void meanVariance(final BasicMetrics metrics, final Values values) {
+        metrics.meanVariance.record(values.next());
+    }
+
+    @Benchmark
+    public void histogram(final BasicMetrics metrics, final Values values) {
+        metrics.histogram.record(values.next());
+    }
+
+    @Benchmark
+    public void longSum(final BasicMetrics metrics, final Values values) {
+        metrics.longSum.record(values.nextLong());
+    }
+
+    @Benchmark
+    public void singleWriterCounter(final BasicMetrics metrics) {
+        metrics.counter.increment();
+    }
+
+    @Benchmark
+    public void seqLockAvg(final BasicMetrics metrics, final Values values) {
+        metrics.seqLockAvg.record(values.next());
+    }
+
+    @Benchmark
+    public void seqLockMeanVariance(final BasicMetrics metrics, final Values values) {
+        metrics.seqLockMeanVariance.record(values.next());
+    }
+
+    @Benchmark
+    public void stats(final BasicMetrics metrics, final Values values) {
+        metrics.stats.record(values.next());
+    }
+
+    @Benchmark
+    public void groupedStats(final BasicMetrics metrics, final Values values) {
+        final double value = values.next();
+        final GroupedMetrics grouped = metrics.grouped;
+        grouped.sum.recorder().record(value);
+        grouped.min.recorder().record(value);
+        grouped.max.recorder().record(value);
+        grouped.meanVariance.recorder().record(value);
+    }
+
+    @Benchmark
+    public void concurrentSum(final ConcurrentMetrics metrics, final Values values) {
+        metrics.sum.record(values.next());
+    }
+
+    @Benchmark
+    public void concurrentMin(final ConcurrentMetrics metrics, final Values values) {
+        metrics.min.record(values.next());
+    }
+
+    @Benchmark
+    public void concurrentMax(final ConcurrentMetrics metrics, final Values values) {
+        metrics.max.record(values.next());
+    }
+
+    @Benchmark
+    public void concurrentAvg(final ConcurrentMetrics metrics, final Values values) {
+        metrics.avg.record(values.next());
+    }
+
+    @Benchmark
+    public void stripedCounter(final ConcurrentMetrics metrics) {
+        metrics.counter.increment();
+    }
+
+    @Benchmark
+    public void shardedSum(final Shard shard, final Values values) {
+        shard.shard.getOrCreate(Key.SUM).record(values.next());
+    }
+
+    @Threads(1)
+    public static class SingleThreaded extends RecordBenchmark {}
+
+    @Threads(Threads.MAX)
+    public static class MultiThreaded extends RecordBenchmark {}
+}
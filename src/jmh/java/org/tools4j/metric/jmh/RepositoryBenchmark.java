@@ -0,0 +1,187 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.tools4j.metric.api.DiscriminatingRepository;
+import org.tools4j.metric.api.Repository;
+import org.tools4j.metric.basic.SumMetric;
+import org.tools4j.metric.repository.ArrayRepository;
+import org.tools4j.metric.repository.AtomicArrayRepository;
+import org.tools4j.metric.repository.AtomicLongRepository;
+import org.tools4j.metric.repository.DefaultDiscriminatingRepository;
+import org.tools4j.metric.repository.LongRepository;
+import org.tools4j.metric.repository.MapRepository;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Benchmarks {@code getOrCreate} and {@code getOrNull} of all repositories;  the repositories are shared by all
+ * benchmark threads and populated in setup so that the benchmark measures the steady state lookup.
+ */
+public abstract class RepositoryBenchmark {
+
+    public enum Key {
+        K00, K01, K02, K03, K04, K05, K06, K07, K08, K09, K10, K11, K12, K13, K14, K15
+    }
+
+    public enum Discriminator {
+        D0, D1, D2, D3
+    }
+
+    private static final Key[] KEYS = Key.values();
+    private static final Discriminator[] DISCRIMINATORS = Discriminator.values();
+
+    @State(Scope.Thread)
+    public static class Keys {
+        private int counter;
+
+        long nextLongKey() {
+            return 1_000_000L + (counter++ & (KEYS.length - 1));
+        }
+
+        Key nextKey() {
+            return KEYS[counter++ & (KEYS.length - 1)];
+        }
+
+        Discriminator discriminator() {
+            return DISCRIMINATORS[(counter >>> 4) & (DISCRIMINATORS.length - 1)];
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Repositories {
+        Repository<Key, SumMetric> array;
+        Repository<Key, SumMetric> atomicArray;
+        Repository<Key, SumMetric> map;
+        DiscriminatingRepository<Key, Discriminator, SumMetric> discriminating;
+        DiscriminatingRepository<Key, Discriminator, SumMetric> atomicDiscriminating;
+        LongRepository<SumMetric> longRepository;
+        AtomicLongRepository<SumMetric> atomicLongRepository;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            array = ArrayRepository.forEnum(Key.class, k -> new SumMetric());
+            atomicArray = AtomicArrayRepository.forEnum(Key.class, k -> new SumMetric());
+            map = new MapRepository<>(new ConcurrentHashMap<>(), k -> new SumMetric());
+            discriminating = DefaultDiscriminatingRepository.forEnums(Key.class, Discriminator.class, SumMetric::new);
+            atomicDiscriminating = DefaultDiscriminatingRepository.atomicForEnums(Key.class, Discriminator.class,
+                    SumMetric::new);
+            longRepository = new LongRepository<>(k -> new SumMetric());
+            atomicLongRepository = new AtomicLongRepository<>(k -> new SumMetric());
+            for (final Key key : KEYS) {
+                longRepository.getOrCreate(1_000_000L + key.ordinal());
+                atomicLongRepository.getOrCreate(1_000_000L + key.ordinal());
+                array.getOrCreate(key);
+                atomicArray.getOrCreate(key);
+                map.getOrCreate(key);
+                for (final Discriminator discriminator : DISCRIMINATORS) {
+                    discriminating.getOrCreate(key, discriminator);
+                    atomicDiscriminating.getOrCreate(key, discriminator);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public SumMetric arrayGetOrCreate(final Repositories repositories, final Keys keys) {
+        return repositories.array.getOrCreate(keys.nextKey());
+    }
+
+    @Benchmark
+    public SumMetric arrayGetOrNull(final Repositories repositories, final Keys keys) {
+        return repositories.array.getOrNull(keys.nextKey());
+    }
+
+    @Benchmark
+    public SumMetric atomicArrayGetOrCreate(final Repositories repositories, final Keys keys) {
+        return repositories.atomicArray.getOrCreate(keys.nextKey());
+    }
+
+    @Benchmark
+    public SumMetric atomicArrayGetOrNull(final Repositories repositories, final Keys keys) {
+        return repositories.atomicArray.getOrNull(keys.nextKey());
+    }
+
+    @Benchmark
+    public SumMetric mapGetOrCreate(final Repositories repositories, final Keys keys) {
+        return repositories.map.getOrCreate(keys.nextKey());
+    }
+
+    @Benchmark
+    public SumMetric mapGetOrNull(final Repositories repositories, final Keys keys) {
+        return repositories.map.getOrNull(keys.nextKey());
+    }
+
+    @Benchmark
+    public SumMetric discriminatingGetOrCreate(final Repositories repositories, final Keys keys) {
+        return repositories.discriminating.getOrCreate(keys.nextKey(), keys.discriminator());
+    }
+
+    @Benchmark
+    public SumMetric discriminatingGetOrNull(final Repositories repositories, final Keys keys) {
+        return repositories.discriminating.getOrNull(keys.nextKey(), keys.discriminator());
+    }
+
+    @Benchmark
+    public SumMetric atomicDiscriminatingGetOrCreate(final Repositories repositories, final Keys keys) {
+        return repositories.atomicDiscriminating.getOrCreate(keys.nextKey(), keys.discriminator());
+    }
+
+    @Benchmark
+    public SumMetric atomicDiscriminatingGetOrNull(final Repositories repositories, final Keys keys) {
+        return repositories.atomicDiscriminating.getOrNull(keys.nextKey(), keys.discriminator());
+    }
+
+    @Benchmark
+    public SumMetric longGetOrCreate(final Repositories repositories, final Keys keys) {
+        return repositories.longRepository.getOrCreate(keys.nextLongKey());
+    }
+
+    @Benchmark
+    public SumMetric longGetOrNull(final Repositories repositories, final Keys keys) {
+        return repositories.longRepository.getOrNull(keys.nextLongKey());
+    }
+
+    @Benchmark
+    public SumMetric atomicLongGetOrCreate(final Repositories repositories, final Keys keys) {
+        return repositories.atomicLongRepository.getOrCreate(keys.nextLongKey());
+    }
+
+    @Benchmark
+    public SumMetric atomicLongGetOrNull(final Repositories repositories, final Keys keys) {
+        return repositories.atomicLongRepository.getOrNull(keys.nextLongKey());
+    }
+
+    @Threads(1)
+    public static class SingleThreaded extends RepositoryBenchmark {}
+
+    @Threads(Threads.MAX)
+    public static class MultiThreaded extends RepositoryBenchmark {}
+}
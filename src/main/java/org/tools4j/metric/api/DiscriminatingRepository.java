@@ -23,6 +23,8 @@
  */
 package org.tools4j.metric.api;
 
+import java.util.function.BiConsumer;
+
 public interface DiscriminatingRepository<K,D,V> extends Repository<K,V> {
 
     default boolean exists(K key, D discreminator) {
@@ -31,4 +33,20 @@ public interface DiscriminatingRepository<K,D,V> extends Repository<K,V> {
 
     V getOrNull(K key, D discriminator);
     V getOrCreate(K key, D discriminator);
+
+    /**
+     * Consumer of key, discriminator and value.
+     */
+    @FunctionalInterface
+    interface DiscriminatedConsumer<K,D,V> {
+        void accept(K key, D discriminator, V value);
+    }
+
+    /**
+     * Invokes the consumer for every discriminated value in this repository;  values stored for a key without
+     * discriminator are visited by {@link #forEach(BiConsumer)}.
+     *
+     * @param consumer the consumer invoked with key, discriminator and value
+     */
+    void forEachDiscriminated(DiscriminatedConsumer<? super K, ? super D, ? super V> consumer);
 }
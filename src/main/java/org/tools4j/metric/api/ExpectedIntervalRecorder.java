@@ -0,0 +1,61 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.api;
+
+/**
+ * Recorder for latencies that corrects for coordinated omission:  if a recorded value exceeds the expected interval
+ * between two samples, the samples that would have been recorded while the system was stalled are back-filled with
+ * linearly decreasing values {@code value - expectedInterval}, {@code value - 2*expectedInterval} etc. down to the
+ * expected interval, as in HdrHistogram's {@code recordValueWithExpectedInterval}.  At most {@link #MAX_BACK_FILL}
+ * samples are back-filled for a single value so that all implementations agree on count and mean after a long stall.
+ */
+public interface ExpectedIntervalRecorder {
+
+    /** The maximum number of missed samples back-filled for a single recorded value */
+    long MAX_BACK_FILL = 1 << 20;
+
+    /**
+     * Returns the number of missed samples to back-fill for a value, that is,
+     * {@code floor((value - expectedInterval) / expectedInterval)} capped at {@link #MAX_BACK_FILL}.
+     *
+     * @param value             the recorded value
+     * @param expectedInterval  the expected interval between two samples
+     * @return the number of missed samples, zero if the expected interval is not positive or value is NaN
+     */
+    static long missedSamples(final double value, final double expectedInterval) {
+        if (!(expectedInterval > 0) || !(value >= 2 * expectedInterval)) {
+            return 0;
+        }
+        return Math.min(MAX_BACK_FILL, (long)((value - expectedInterval) / expectedInterval));
+    }
+
+    /**
+     * Records the value and back-fills missed samples.
+     *
+     * @param value             the value to record, for instance a latency
+     * @param expectedInterval  the expected interval between two samples in the same unit as value;  no correction
+     *                          is applied if not positive
+     */
+    void recordWithExpectedInterval(double value, double expectedInterval);
+}
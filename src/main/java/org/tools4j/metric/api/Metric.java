@@ -25,5 +25,18 @@ package org.tools4j.metric.api;
 
 public interface Metric extends Printable {
     MetricRecorder recorder();
+
+    /**
+     * Returns a recorder for long values.  The default implementation converts values to double and passes them to
+     * the {@link #recorder() recorder};  metrics override this method to record long values directly.  The returned
+     * recorder should be retained by the caller as the default implementation allocates a new instance on every call.
+     *
+     * @return a recorder for long values
+     */
+    default LongMetricRecorder longRecorder() {
+        final MetricRecorder recorder = recorder();
+        return value -> recorder.record(value);
+    }
+
     void reset();
 }
@@ -0,0 +1,132 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.api;
+
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Repository with values addressed by multiple int ordinals, one per dimension, for instance the ordinals of
+ * key, venue and side enums.  The ordinals are mapped to a single flat index in row-major order, that is, the last
+ * dimension varies fastest.
+ *
+ * @param <V> the value type
+ */
+public interface MultiDimensionalRepository<V> {
+
+    /**
+     * @return the number of dimensions
+     */
+    int dimensions();
+
+    /**
+     * @param dimension the dimension, zero based
+     * @return the number of ordinals in the given dimension
+     */
+    int length(int dimension);
+
+    /**
+     * @return the total number of values, the product of the length of all dimensions
+     */
+    int size();
+
+    /**
+     * Returns the flat index for the given ordinals;  the index can be cached and used with {@link #getOrNull(int)}
+     * and {@link #getOrCreate(int)} to avoid index computation on the hot path.
+     *
+     * @param ordinal0 the ordinal in dimension 0
+     * @param ordinal1 the ordinal in dimension 1
+     * @return the flat index
+     * @throws IllegalArgumentException if the repository does not have 2 dimensions
+     * @throws IndexOutOfBoundsException if an ordinal is out of bounds
+     */
+    int index(int ordinal0, int ordinal1);
+    int index(int ordinal0, int ordinal1, int ordinal2);
+    int index(int ordinal0, int ordinal1, int ordinal2, int ordinal3);
+
+    /**
+     * Returns the flat index for the given ordinals with one ordinal per dimension, for any number of dimensions.
+     * Pass a reused array instead of individual ordinals to avoid allocating a varargs array.
+     *
+     * @param ordinals the ordinals, one per dimension
+     * @return the flat index
+     * @throws IllegalArgumentException if the number of ordinals does not match the number of dimensions
+     * @throws IndexOutOfBoundsException if an ordinal is out of bounds
+     */
+    int index(int... ordinals);
+
+    /**
+     * Returns the ordinal of a dimension for a flat index, the inverse of {@link #index(int...)}, for instance to
+     * derive the coordinates of a value in a value factory which is invoked with the flat index.
+     *
+     * @param index     the flat index
+     * @param dimension the dimension, zero based
+     * @return the ordinal in the given dimension
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    int ordinalOf(int index, int dimension);
+
+    /**
+     * @param index the flat index
+     * @return the value at the given index or null if no value has been created yet
+     */
+    V getOrNull(int index);
+
+    /**
+     * @param index the flat index
+     * @return the value at the given index, created if it did not exist yet
+     */
+    V getOrCreate(int index);
+
+    /**
+     * Invokes the consumer for every existing value with its flat index in ascending index order;  the ordinals can
+     * be obtained via {@link #ordinalOf(int, int)}.  Implementations do not allocate.
+     *
+     * @param consumer the consumer invoked with value and flat index
+     */
+    void forEach(ObjIntConsumer<? super V> consumer);
+
+    default V getOrNull(final int ordinal0, final int ordinal1) {
+        return getOrNull(index(ordinal0, ordinal1));
+    }
+
+    default V getOrNull(final int ordinal0, final int ordinal1, final int ordinal2) {
+        return getOrNull(index(ordinal0, ordinal1, ordinal2));
+    }
+
+    default V getOrNull(final int ordinal0, final int ordinal1, final int ordinal2, final int ordinal3) {
+        return getOrNull(index(ordinal0, ordinal1, ordinal2, ordinal3));
+    }
+
+    default V getOrCreate(final int ordinal0, final int ordinal1) {
+        return getOrCreate(index(ordinal0, ordinal1));
+    }
+
+    default V getOrCreate(final int ordinal0, final int ordinal1, final int ordinal2) {
+        return getOrCreate(index(ordinal0, ordinal1, ordinal2));
+    }
+
+    default V getOrCreate(final int ordinal0, final int ordinal1, final int ordinal2, final int ordinal3) {
+        return getOrCreate(index(ordinal0, ordinal1, ordinal2, ordinal3));
+    }
+}
@@ -23,18 +23,21 @@
  */
 package org.tools4j.metric.api;
 
-import java.io.IOException;
-
+/**
+ * An object that can print itself to a text output.  Printing to a {@link TextOutput} such as a
+ * {@link org.tools4j.metric.encode.ByteBufferTextOutput ByteBufferTextOutput} is garbage free.  The
+ * {@link StringBuilder} and {@link Appendable} variants adapt the target through a thread confined text output that
+ * is reused across invocations and hence do not allocate either, apart from growing the string builder or any
+ * allocations made by the appendable itself.
+ */
 public interface Printable {
-    void print(StringBuilder output);
+    void print(TextOutput output);
+
+    default void print(StringBuilder output) {
+        PrintableAdapters.print(this, output);
+    }
 
     default void print(Appendable output) {
-        final StringBuilder stringBuilder = new StringBuilder();
-        print(stringBuilder);
-        try {
-            output.append(stringBuilder);
-        } catch (final IOException e) {
-            throw new IllegalArgumentException("Appendable " + output + " threw an exception, e=" + e, e);
-        }
+        PrintableAdapters.print(this, output);
     }
 }
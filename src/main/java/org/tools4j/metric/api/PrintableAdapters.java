@@ -0,0 +1,66 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.api;
+
+import org.tools4j.metric.encode.AppendableTextOutput;
+import org.tools4j.metric.encode.StringBuilderTextOutput;
+
+/**
+ * Thread confined text output adapters reused by the default methods of {@link Printable} so that printing to a
+ * {@link StringBuilder} or {@link Appendable} does not allocate an adapter per invocation.  The previously wrapped
+ * target is restored after printing which makes nested printing in the same thread safe.
+ */
+final class PrintableAdapters {
+
+    private static final ThreadLocal<StringBuilderTextOutput> STRING_BUILDER_OUTPUT =
+            ThreadLocal.withInitial(StringBuilderTextOutput::new);
+    private static final ThreadLocal<AppendableTextOutput> APPENDABLE_OUTPUT =
+            ThreadLocal.withInitial(() -> new AppendableTextOutput(new StringBuilder(0)));
+
+    private PrintableAdapters() {
+        //static utility methods only
+    }
+
+    static void print(final Printable printable, final StringBuilder output) {
+        final StringBuilderTextOutput adapter = STRING_BUILDER_OUTPUT.get();
+        final StringBuilder previous = adapter.output();
+        adapter.wrap(output);
+        try {
+            printable.print(adapter);
+        } finally {
+            adapter.wrap(previous);
+        }
+    }
+
+    static void print(final Printable printable, final Appendable output) {
+        final AppendableTextOutput adapter = APPENDABLE_OUTPUT.get();
+        final Appendable previous = adapter.output();
+        adapter.wrap(output);
+        try {
+            printable.print(adapter);
+        } finally {
+            adapter.wrap(previous);
+        }
+    }
+}
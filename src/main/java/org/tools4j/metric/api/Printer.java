@@ -24,5 +24,5 @@
 package org.tools4j.metric.api;
 
 public interface Printer<M> {
-    void print(M metric, StringBuilder output);
+    void print(M metric, TextOutput output);
 }
@@ -0,0 +1,78 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.api;
+
+import java.util.Objects;
+
+/**
+ * Metric that estimates quantiles of the distribution of a sampled value, such as a histogram or a t-digest.
+ */
+public interface QuantileMetric extends Metric {
+
+    /**
+     * @param quantile the quantile in {@code [0, 1]}, for instance 0.99 for the 99th percentile
+     * @return the (estimated) value at the given quantile, or NaN if the sample is empty
+     */
+    double valueAtQuantile(double quantile);
+
+    /**
+     * @param percentile the percentile in {@code [0, 100]}, for instance 99.9
+     * @return the (estimated) value at the given percentile, or NaN if the sample is empty
+     * @see #valueAtQuantile(double)
+     */
+    default double valueAtPercentile(final double percentile) {
+        return valueAtQuantile(percentile / 100);
+    }
+
+    /**
+     * @return the maximum value of the sample, or NaN if the sample is empty
+     */
+    double max();
+
+    /**
+     * Returns a printer that prints the given percentiles followed by the maximum, for instance
+     * {@code "p50=12.0 p99=26.0 p99.9=31.0 max=35.0"} for percentiles 50, 99 and 99.9.
+     *
+     * @param separator     the separator between printed values
+     * @param percentiles   the percentiles to print, each in {@code [0, 100]}
+     * @param <M>           the metric type
+     * @return a printer for quantile metrics
+     */
+    static <M extends QuantileMetric> Printer<M> percentilePrinter(final String separator,
+                                                                   final double... percentiles) {
+        Objects.requireNonNull(separator);
+        final String[] names = new String[percentiles.length];
+        for (int i = 0; i < percentiles.length; i++) {
+            final double p = percentiles[i];
+            names[i] = "p" + (p == (long)p ? String.valueOf((long)p) : String.valueOf(p));
+        }
+        final double[] ps = percentiles.clone();
+        return (metric, output) -> {
+            for (int i = 0; i < ps.length; i++) {
+                output.append(names[i]).append('=').append(metric.valueAtPercentile(ps[i])).append(separator);
+            }
+            output.append("max=").append(metric.max());
+        };
+    }
+}
@@ -24,6 +24,8 @@
 
 package org.tools4j.metric.api;
 
+import java.util.function.BiConsumer;
+
 public interface Repository<K,V> {
 
     default boolean exists(K key) {
@@ -33,4 +35,12 @@ public interface Repository<K,V> {
     V getOrNull(K key);
     V getOrCreate(K key);
 
+    /**
+     * Invokes the consumer for every key and value in this repository.  Implementations do not allocate unless stated
+     * otherwise, hence a consumer that is not capturing or cached makes the iteration garbage free.
+     *
+     * @param consumer the consumer invoked with key and value
+     */
+    void forEach(BiConsumer<? super K, ? super V> consumer);
+
 }
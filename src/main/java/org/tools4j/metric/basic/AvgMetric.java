@@ -23,9 +23,13 @@
  */
 package org.tools4j.metric.basic;
 
+import org.tools4j.metric.api.ExpectedIntervalRecorder;
+import org.tools4j.metric.api.LongMetricRecorder;
 import org.tools4j.metric.api.Metric;
 import org.tools4j.metric.api.MetricRecorder;
 import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.Subtractable;
+import org.tools4j.metric.api.TextOutput;
 
 import java.util.Objects;
 
@@ -34,11 +38,13 @@ import java.util.Objects;
  * <p>
  * The implementation is based on Welford’s Algorithm given in Knuth Vol 2, p 232.
  */
-public class AvgMetric implements Metric, MetricRecorder {
+public class AvgMetric implements Metric, MetricRecorder, LongMetricRecorder, ExpectedIntervalRecorder,
+        Subtractable<AvgMetric> {
 
     private long count = 0;
     private double avg = Double.NaN;
     private final MetricRecorder recorder = this::record;
+    private final LongMetricRecorder longRecorder = this::record;
     private final Printer<? super AvgMetric> printer;
 
     public AvgMetric() {
@@ -58,12 +64,62 @@ public class AvgMetric implements Metric, MetricRecorder {
         return recorder;
     }
 
+    @Override
+    public LongMetricRecorder longRecorder() {
+        return longRecorder;
+    }
+
     @Override
     public void record(final double value) {
         count++;
         avg = count == 1 ? value : avg + (value - avg) / count;
     }
 
+    @Override
+    public void record(final long value) {
+        record((double)value);
+    }
+
+    /**
+     * Records the value and back-fills at most {@link #MAX_BACK_FILL} missed samples.  The back-filled values form an
+     * arithmetic series that is added in constant time.
+     *
+     * @param value             the value to record
+     * @param expectedInterval  the expected interval between two samples, no correction is applied if not positive
+     */
+    @Override
+    public void recordWithExpectedInterval(final double value, final double expectedInterval) {
+        record(value);
+        final long missed = ExpectedIntervalRecorder.missedSamples(value, expectedInterval);
+        if (missed > 0) {
+            final double missedAvg = value - expectedInterval * (missed + 1) / 2;
+            count += missed;
+            avg += (missedAvg - avg) * missed / count;
+        }
+    }
+
+    @Override
+    public void mergeFrom(final AvgMetric other) {
+        if (other.count == 0) {
+            return;
+        }
+        count += other.count;
+        avg = count == other.count ? other.avg : avg + (other.avg - avg) * other.count / count;
+    }
+
+    @Override
+    public void subtract(final AvgMetric other) {
+        if (other.count > count) {
+            throw new IllegalArgumentException("Cannot subtract " + other.count + " values from " + count);
+        }
+        if (other.count == 0) {
+            return;
+        }
+        final long remaining = count - other.count;
+        avg = remaining == 0 ? Double.NaN : avg + (avg - other.avg) * other.count / remaining;
+        count = remaining;
+    }
+
     @Override
     public void reset() {
         count = 0;
@@ -71,11 +127,18 @@ public class AvgMetric implements Metric, MetricRecorder {
     }
 
     @Override
-    public void print(final StringBuilder output) {
+    public void print(final TextOutput output) {
         printer.print(this, output);
     }
 
     public double avg() {
         return avg;
     }
+
+    /**
+     * @return the number of values in the sample
+     */
+    public long count() {
+        return count;
+    }
 }
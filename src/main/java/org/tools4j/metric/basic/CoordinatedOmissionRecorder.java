@@ -0,0 +1,89 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.basic;
+
+import org.tools4j.metric.api.ExpectedIntervalRecorder;
+import org.tools4j.metric.api.LongMetricRecorder;
+import org.tools4j.metric.api.MetricRecorder;
+
+import java.util.Objects;
+
+/**
+ * Recorder wrapping the recorder of any metric that corrects every recorded value for coordinated omission given a
+ * fixed expected interval between samples, for instance the request interval of a load generator.
+ *
+ * @see ExpectedIntervalRecorder
+ */
+public class CoordinatedOmissionRecorder implements MetricRecorder, LongMetricRecorder, ExpectedIntervalRecorder {
+
+    private final MetricRecorder recorder;
+    private final double expectedInterval;
+
+    public CoordinatedOmissionRecorder(final MetricRecorder recorder, final double expectedInterval) {
+        if (!(expectedInterval > 0) || Double.isInfinite(expectedInterval)) {
+            throw new IllegalArgumentException("Expected interval must be positive and finite: " + expectedInterval);
+        }
+        this.recorder = Objects.requireNonNull(recorder);
+        this.expectedInterval = expectedInterval;
+    }
+
+    /**
+     * Records the value into the given recorder and back-fills the samples that were missed if value exceeds the
+     * expected interval.  The missed samples are {@code value - k * expectedInterval} for {@code k = 1..n} with
+     * {@code n = floor((value - expectedInterval) / expectedInterval)}, but at most {@link #MAX_BACK_FILL}.
+     * Metrics should prefer {@link ExpectedIntervalRecorder} implementations that back-fill in bulk, such as
+     * {@link AvgMetric} and {@link HistogramMetric}, over recording every missed sample individually.
+     *
+     * @param recorder          the recorder to record into
+     * @param value             the value to record
+     * @param expectedInterval  the expected interval between two samples, no correction is applied if not positive
+     */
+    public static void recordWithExpectedInterval(final MetricRecorder recorder, final double value,
+                                                  final double expectedInterval) {
+        recorder.record(value);
+        final long missed = ExpectedIntervalRecorder.missedSamples(value, expectedInterval);
+        for (long k = 1; k <= missed; k++) {
+            recorder.record(value - k * expectedInterval);
+        }
+    }
+
+    @Override
+    public void record(final double value) {
+        recordWithExpectedInterval(recorder, value, expectedInterval);
+    }
+
+    @Override
+    public void record(final long value) {
+        record((double)value);
+    }
+
+    @Override
+    public void recordWithExpectedInterval(final double value, final double expectedInterval) {
+        recordWithExpectedInterval(recorder, value, expectedInterval);
+    }
+
+    public double expectedInterval() {
+        return expectedInterval;
+    }
+}
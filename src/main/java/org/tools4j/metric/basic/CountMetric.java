@@ -0,0 +1,112 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.basic;
+
+import org.tools4j.metric.api.LongMetricRecorder;
+import org.tools4j.metric.api.Metric;
+import org.tools4j.metric.api.MetricRecorder;
+import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.Subtractable;
+import org.tools4j.metric.api.TextOutput;
+
+import java.util.Objects;
+
+/**
+ * Metric that counts the number of recorded values or events;  the recorded values themselves are ignored.  See
+ * {@link org.tools4j.metric.concurrent.RateCounterMetric RateCounterMetric} for thread safe counters that add the
+ * recorded values and derive a rate.
+ */
+public class CountMetric implements Metric, MetricRecorder, LongMetricRecorder, Subtractable<CountMetric> {
+
+    private long count;
+    private final MetricRecorder recorder = this::record;
+    private final LongMetricRecorder longRecorder = this::record;
+    private final Printer<? super CountMetric> printer;
+
+    public CountMetric() {
+        this("count");
+    }
+
+    public CountMetric(final String name) {
+        this((metric, output) -> output.append(name).append('=').append(metric.count()));
+    }
+
+    public CountMetric(final Printer<? super CountMetric> printer) {
+        this.printer = Objects.requireNonNull(printer);
+    }
+
+    @Override
+    public MetricRecorder recorder() {
+        return recorder;
+    }
+
+    @Override
+    public LongMetricRecorder longRecorder() {
+        return longRecorder;
+    }
+
+    @Override
+    public void record(final double value) {
+        count++;
+    }
+
+    @Override
+    public void record(final long value) {
+        count++;
+    }
+
+    /**
+     * Increments the count by one, equivalent to recording any value.
+     */
+    public void increment() {
+        count++;
+    }
+
+    @Override
+    public void mergeFrom(final CountMetric other) {
+        count += other.count;
+    }
+
+    @Override
+    public void subtract(final CountMetric other) {
+        if (other.count > count) {
+            throw new IllegalArgumentException("Cannot subtract " + other.count + " values from " + count);
+        }
+        count -= other.count;
+    }
+
+    @Override
+    public void reset() {
+        count = 0;
+    }
+
+    @Override
+    public void print(final TextOutput output) {
+        printer.print(this, output);
+    }
+
+    public long count() {
+        return count;
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.basic;
+
+import org.tools4j.metric.api.LongMetricRecorder;
+import org.tools4j.metric.api.Metric;
+import org.tools4j.metric.api.MetricRecorder;
+import org.tools4j.metric.api.NanoClock;
+import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.TextOutput;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metric that tracks the exponentially weighted moving average of a sampled value.  The weight of a value halves
+ * every half-life period, hence recent values dominate the average while old values fade out.
+ * <p>
+ * The metric keeps a decayed sum of values and a decayed sum of weights;  both are decayed lazily when a value is
+ * recorded, hence no background tick is required.  Since the average is the ratio of the two sums it is not biased
+ * towards an initial value, and since both sums decay by the same factor reading the average does not have to decay
+ * them and never modifies state.
+ * <p>
+ * The metric is not thread safe:  sum and weight are plain fields which must be recorded and read by the same thread,
+ * or reads must be synchronized with recording externally, otherwise a read may combine values of different records.
+ * Use {@link EwmaRateMetric} for a rate that can be read by other threads.
+ */
+public class EwmaMeanMetric implements Metric, MetricRecorder, LongMetricRecorder {
+
+    private final NanoClock clock;
+    private final double decayPerNano;
+    private double sum = 0;
+    private double weight = 0;
+    private long lastTime;
+    private final MetricRecorder recorder = this::record;
+    private final LongMetricRecorder longRecorder = this::record;
+    private final Printer<? super EwmaMeanMetric> printer;
+
+    public EwmaMeanMetric(final long halfLife, final TimeUnit unit) {
+        this(halfLife, unit, "ewma");
+    }
+
+    public EwmaMeanMetric(final long halfLife, final TimeUnit unit, final String name) {
+        this(halfLife, unit, NanoClock.SYSTEM,
+                (metric, output) -> output.append(name).append('=').append(metric.mean()));
+    }
+
+    public EwmaMeanMetric(final long halfLife, final TimeUnit unit, final NanoClock clock,
+                          final Printer<? super EwmaMeanMetric> printer) {
+        this.decayPerNano = decayPerNano(halfLife, unit);
+        this.clock = Objects.requireNonNull(clock);
+        this.printer = Objects.requireNonNull(printer);
+        this.lastTime = clock.nanoTime();
+    }
+
+    static double decayPerNano(final long halfLife, final TimeUnit unit) {
+        final long halfLifeNanos = unit.toNanos(halfLife);
+        if (halfLifeNanos <= 0) {
+            throw new IllegalArgumentException("Half-life must be positive: " + halfLife + " " + unit);
+        }
+        return Math.log(2) / halfLifeNanos;
+    }
+
+    @Override
+    public MetricRecorder recorder() {
+        return recorder;
+    }
+
+    @Override
+    public LongMetricRecorder longRecorder() {
+        return longRecorder;
+    }
+
+    @Override
+    public void record(final double value) {
+        final long time = clock.nanoTime();
+        final long elapsed = time - lastTime;
+        if (elapsed > 0) {
+            final double decay = Math.exp(-decayPerNano * elapsed);
+            sum *= decay;
+            weight *= decay;
+            lastTime = time;
+        }
+        sum += value;
+        weight += 1;
+    }
+
+    @Override
+    public void record(final long value) {
+        record((double)value);
+    }
+
+    @Override
+    public void reset() {
+        sum = 0;
+        weight = 0;
+        lastTime = clock.nanoTime();
+    }
+
+    @Override
+    public void print(final TextOutput output) {
+        printer.print(this, output);
+    }
+
+    /**
+     * @return the exponentially weighted moving average, or NaN if no value has been recorded
+     */
+    public double mean() {
+        return weight > 0 ? sum / weight : Double.NaN;
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.basic;
+
+import org.tools4j.metric.api.LongMetricRecorder;
+import org.tools4j.metric.api.Metric;
+import org.tools4j.metric.api.MetricRecorder;
+import org.tools4j.metric.api.NanoClock;
+import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.TextOutput;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Metric that tracks the exponentially weighted moving rate of events or of a sampled amount, for instance events per
+ * second smoothed with a half-life of 1, 5 or 15 seconds.  Every recorded value is added to the amount, use
+ * {@link #increment()} to count events.
+ * <p>
+ * The metric keeps a decayed sum of recorded amounts which is decayed lazily when recording, hence no background
+ * tick is required;  reading decays the sum to the current time without modifying it.  For a constant rate the
+ * decayed sum converges to {@code rate * halfLife / ln(2)} from which the rate is derived.
+ * <p>
+ * Record and reset must only be called by a single writer thread.  The rate can be read at any moment by any thread,
+ * for instance by load shedding logic;  sum and time are published with ordered stores so that reading never blocks
+ * the writer or loses recorded amounts.  A read concurrent with a record may see the new sum with the previous time
+ * in which case the rate is momentarily underestimated by the decay since the previous record.
+ */
+public class EwmaRateMetric implements Metric, MetricRecorder, LongMetricRecorder {
+
+    private final NanoClock clock;
+    private static final AtomicLongFieldUpdater<EwmaRateMetric> SUM_BITS =
+            AtomicLongFieldUpdater.newUpdater(EwmaRateMetric.class, "sumBits");
+    private static final AtomicLongFieldUpdater<EwmaRateMetric> LAST_TIME =
+            AtomicLongFieldUpdater.newUpdater(EwmaRateMetric.class, "lastTime");
+
+    private final double decayPerNano;
+    private volatile long sumBits = Double.doubleToRawLongBits(0);
+    private volatile long lastTime;
+    private final MetricRecorder recorder = this::record;
+    private final LongMetricRecorder longRecorder = this::record;
+    private final Printer<? super EwmaRateMetric> printer;
+
+    public EwmaRateMetric(final long halfLife, final TimeUnit unit) {
+        this(halfLife, unit, "rate");
+    }
+
+    public EwmaRateMetric(final long halfLife, final TimeUnit unit, final String name) {
+        this(halfLife, unit, NanoClock.SYSTEM,
+                (metric, output) -> output.append(name).append('=').append(metric.rate(TimeUnit.SECONDS)));
+    }
+
+    public EwmaRateMetric(final long halfLife, final TimeUnit unit, final NanoClock clock,
+                          final Printer<? super EwmaRateMetric> printer) {
+        this.decayPerNano = EwmaMeanMetric.decayPerNano(halfLife, unit);
+        this.clock = Objects.requireNonNull(clock);
+        this.printer = Objects.requireNonNull(printer);
+        this.lastTime = clock.nanoTime();
+    }
+
+    @Override
+    public MetricRecorder recorder() {
+        return recorder;
+    }
+
+    @Override
+    public LongMetricRecorder longRecorder() {
+        return longRecorder;
+    }
+
+    @Override
+    public void record(final double value) {
+        final long time = clock.nanoTime();
+        final long last = lastTime;
+        final double sum = decayed(Double.longBitsToDouble(sumBits), last, time);
+        SUM_BITS.lazySet(this, Double.doubleToRawLongBits(sum + value));
+        if (time > last) {
+            LAST_TIME.lazySet(this, time);
+        }
+    }
+
+    @Override
+    public void record(final long value) {
+        record((double)value);
+    }
+
+    /**
+     * Records one event, equivalent to recording the value one.
+     */
+    public void increment() {
+        record(1.0);
+    }
+
+    private double decayed(final double sum, final long last, final long time) {
+        final long elapsed = time - last;
+        return elapsed > 0 ? sum * Math.exp(-decayPerNano * elapsed) : sum;
+    }
+
+    @Override
+    public void reset() {
+        SUM_BITS.lazySet(this, Double.doubleToRawLongBits(0));
+        LAST_TIME.lazySet(this, clock.nanoTime());
+    }
+
+    @Override
+    public void print(final TextOutput output) {
+        printer.print(this, output);
+    }
+
+    /**
+     * @param unit the time unit for the rate, for instance {@link TimeUnit#SECONDS} for events per second
+     * @return the exponentially weighted moving rate per given time unit
+     */
+    public double rate(final TimeUnit unit) {
+        final long last = lastTime;
+        final double sum = decayed(Double.longBitsToDouble(sumBits), last, clock.nanoTime());
+        return sum * decayPerNano * unit.toNanos(1);
+    }
+}
@@ -25,6 +25,7 @@ package org.tools4j.metric.basic;
 
 import org.tools4j.metric.api.Printable;
 import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.TextOutput;
 
 import java.util.Objects;
 
@@ -58,7 +59,7 @@ public class GroupPrintable implements Printable {
     }
 
     @Override
-    public void print(final StringBuilder output) {
+    public void print(final TextOutput output) {
         printer.print(printables, output);
     }
 }
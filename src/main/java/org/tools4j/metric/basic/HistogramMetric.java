@@ -0,0 +1,350 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.basic;
+
+import org.tools4j.metric.api.ExpectedIntervalRecorder;
+import org.tools4j.metric.api.LongMetricRecorder;
+import org.tools4j.metric.api.Mergeable;
+import org.tools4j.metric.api.MetricRecorder;
+import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.QuantileMetric;
+import org.tools4j.metric.api.TextOutput;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Metric that tracks the distribution of a sampled value in a histogram with log-linear buckets.
+ * <p>
+ * Bucket boundaries are derived directly from the IEEE 754 representation of the recorded value:  every power of two
+ * in the trackable range is linearly split into {@code 2^precisionBits} buckets by using the exponent and the top
+ * {@code precisionBits} bits of the mantissa as bucket index.  Buckets include their upper edge, hence powers of two
+ * and other values on a bucket edge, for instance integers up to {@code 2^(precisionBits+1)}, are exact bucket
+ * bounds.  The relative error of values returned by quantile queries is bounded by {@code 2^-precisionBits}.
+ * <p>
+ * All buckets are allocated at construction time and recording a value performs no allocation.  Values below the
+ * lowest trackable value are counted in the first bucket, values above the highest trackable value in the last
+ * bucket;  minimum and maximum are always tracked exactly.  NaN values are ignored.
+ */
+public class HistogramMetric implements QuantileMetric, MetricRecorder, LongMetricRecorder, ExpectedIntervalRecorder,
+        Mergeable<HistogramMetric> {
+
+    public static final double DEFAULT_LOWEST_TRACKABLE_VALUE = 1;
+    public static final double DEFAULT_HIGHEST_TRACKABLE_VALUE = Long.MAX_VALUE;
+    public static final int DEFAULT_PRECISION_BITS = 7;
+
+    private static final int MANTISSA_BITS = 52;
+
+    private final double lowestTrackableValue;
+    private final double highestTrackableValue;
+    private final int shift;
+    private final long minKey;
+    private final long[] counts;
+    private long count = 0;
+    private double sum = 0;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    private final MetricRecorder recorder = this::record;
+    private final LongMetricRecorder longRecorder = this::record;
+    private final Printer<? super HistogramMetric> printer;
+
+    public HistogramMetric() {
+        this(DEFAULT_LOWEST_TRACKABLE_VALUE, DEFAULT_HIGHEST_TRACKABLE_VALUE, DEFAULT_PRECISION_BITS);
+    }
+
+    public HistogramMetric(final double lowestTrackableValue, final double highestTrackableValue,
+                           final int precisionBits) {
+        this(lowestTrackableValue, highestTrackableValue, precisionBits, percentilePrinter(" ", 50, 99, 99.9));
+    }
+
+    public HistogramMetric(final double lowestTrackableValue, final double highestTrackableValue,
+                           final int precisionBits, final Printer<? super HistogramMetric> printer) {
+        if (!(lowestTrackableValue > 0) || Double.isInfinite(lowestTrackableValue)) {
+            throw new IllegalArgumentException("Lowest trackable value must be positive and finite: " +
+                    lowestTrackableValue);
+        }
+        if (!(highestTrackableValue >= lowestTrackableValue) || Double.isInfinite(highestTrackableValue)) {
+            throw new IllegalArgumentException("Highest trackable value must be finite and not less than " +
+                    lowestTrackableValue + ": " + highestTrackableValue);
+        }
+        if (precisionBits < 0 || precisionBits > MANTISSA_BITS) {
+            throw new IllegalArgumentException("Precision bits must be in [0, " + MANTISSA_BITS + "]: " +
+                    precisionBits);
+        }
+        this.lowestTrackableValue = lowestTrackableValue;
+        this.highestTrackableValue = highestTrackableValue;
+        this.shift = MANTISSA_BITS - precisionBits;
+        this.minKey = key(lowestTrackableValue);
+        final long length = key(highestTrackableValue) - minKey + 1;
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many buckets for range [" + lowestTrackableValue + ", " +
+                    highestTrackableValue + "] and precision bits " + precisionBits + ": " + length);
+        }
+        this.counts = new long[(int)length];
+        this.printer = Objects.requireNonNull(printer);
+    }
+
+    /**
+     * Returns a printer that prints the given percentiles followed by the maximum, for instance
+     * {@code "p50=12.0 p99=26.0 p99.9=31.0 max=35.0"} for percentiles 50, 99 and 99.9.
+     *
+     * @param separator     the separator between printed values
+     * @param percentiles   the percentiles to print, each in {@code [0, 100]}
+     * @return a printer for histogram metrics
+     */
+    public static Printer<HistogramMetric> percentilePrinter(final String separator, final double... percentiles) {
+        return QuantileMetric.percentilePrinter(separator, percentiles);
+    }
+
+    private long key(final double value) {
+        //subtracting one ulp makes buckets inclusive at their upper edge
+        return (Double.doubleToRawLongBits(value) - 1) >>> shift;
+    }
+
+    private int index(final double value) {
+        if (value > lowestTrackableValue) {
+            return value < highestTrackableValue ? (int)(key(value) - minKey) : counts.length - 1;
+        }
+        return 0;
+    }
+
+    private double highestEquivalentValue(final int index) {
+        return Double.longBitsToDouble((minKey + index + 1) << shift);
+    }
+
+    @Override
+    public MetricRecorder recorder() {
+        return recorder;
+    }
+
+    @Override
+    public LongMetricRecorder longRecorder() {
+        return longRecorder;
+    }
+
+    @Override
+    public void record(final double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        counts[index(value)]++;
+        count++;
+        sum += value;
+        if (count > 1) {
+            min = Double.min(min, value);
+            max = Double.max(max, value);
+        } else {
+            min = value;
+            max = value;
+        }
+    }
+
+    @Override
+    public void record(final long value) {
+        record((double)value);
+    }
+
+    @Override
+    public void recordWithExpectedInterval(final double value, final double expectedInterval) {
+        record(value);
+        final long missed = ExpectedIntervalRecorder.missedSamples(value, expectedInterval);
+        if (missed == 0) {
+            return;
+        }
+        //back-fill value - k * expectedInterval for k = 1..missed, adding the arithmetic series per bucket
+        long k = 1;
+        while (k <= missed) {
+            final int bucket = index(value - k * expectedInterval);
+            long last = missed;
+            if (bucket > 0) {
+                final double lowest = Double.longBitsToDouble((minKey + bucket) << shift);
+                last = Math.max(k, Math.min(missed, (long)((value - lowest) / expectedInterval)));
+                while (last > k && index(value - last * expectedInterval) != bucket) {
+                    last--;
+                }
+                while (last < missed && index(value - (last + 1) * expectedInterval) == bucket) {
+                    last++;
+                }
+            }
+            final long n = last - k + 1;
+            counts[bucket] += n;
+            sum += n * value - expectedInterval * ((k + last) * (double)n / 2);
+            k = last + 1;
+        }
+        count += missed;
+        min = Double.min(min, value - missed * expectedInterval);
+    }
+
+    /**
+     * Adds all values recorded by the other histogram to this histogram.
+     *
+     * @param other the histogram whose values are added to this histogram
+     * @throws IllegalArgumentException if other has a different range or precision than this histogram
+     */
+    @Override
+    public void mergeFrom(final HistogramMetric other) {
+        if (shift != other.shift || minKey != other.minKey || counts.length != other.counts.length) {
+            throw new IllegalArgumentException("Histogram range or precision does not match");
+        }
+        if (other.count == 0) {
+            return;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        if (count > 0) {
+            min = Double.min(min, other.min);
+            max = Double.max(max, other.max);
+        } else {
+            min = other.min;
+            max = other.max;
+        }
+        count += other.count;
+        sum += other.sum;
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Double.NaN;
+        max = Double.NaN;
+    }
+
+    @Override
+    public void print(final TextOutput output) {
+        printer.print(this, output);
+    }
+
+    /**
+     * Returns the value at the given quantile;  the result is the highest value equivalent to the bucket containing
+     * the quantile, bounded by the exact minimum and maximum of the sample.  Quantiles falling into the bucket for
+     * values above the highest trackable value return the maximum.
+     *
+     * @param quantile the quantile in {@code [0, 1]}, for instance 0.99 for the 99th percentile
+     * @return the value at the given quantile, or NaN if the sample is empty
+     */
+    @Override
+    public double valueAtQuantile(final double quantile) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        final double q = Math.max(0, Math.min(1, quantile));
+        final long rank = Math.max(1, (long)Math.ceil(q * count));
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return i < counts.length - 1 ? Math.max(min, Math.min(max, highestEquivalentValue(i))) : max;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Computes the number of values at or below each of the given bounds in a single pass, for instance to render
+     * the histogram with a small number of buckets.  A histogram bucket is counted for a bound only if its upper
+     * edge does not exceed the bound.  Counts are hence exact for bounds on a bucket edge, for instance powers of two
+     * and integers up to {@code 2^(precisionBits+1)}, and for bounds below the minimum or at or above the maximum.
+     * For any other bound the values in the bucket containing the bound are not counted, so the count is never too
+     * high but may be too low by the number of values in that single bucket.
+     *
+     * @param bounds    the bounds in ascending order
+     * @param counts    the array receiving the cumulative count for every bound, at least as long as bounds
+     */
+    public void cumulativeCounts(final double[] bounds, final long[] counts) {
+        if (counts.length < bounds.length) {
+            throw new IllegalArgumentException("Counts array length " + counts.length + " is less than " +
+                    bounds.length);
+        }
+        long cumulative = 0;
+        int bucket = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            if (i > 0 && bounds[i] < bounds[i - 1]) {
+                throw new IllegalArgumentException("Bounds must be in ascending order: " + bounds[i - 1] + " > " +
+                        bounds[i]);
+            }
+            final int lastBucket;
+            if (!(bounds[i] >= min)) {
+                lastBucket = -1;
+            } else if (bounds[i] >= max) {
+                lastBucket = this.counts.length - 1;
+            } else {
+                //buckets up to the bound's bucket if the bound is its upper edge, excluding the overflow bucket
+                final int index = index(bounds[i]);
+                lastBucket = index < this.counts.length - 1 && bounds[i] == highestEquivalentValue(index) ?
+                        index : index - 1;
+            }
+            while (bucket <= lastBucket) {
+                cumulative += this.counts[bucket++];
+            }
+            counts[i] = cumulative;
+        }
+    }
+
+    /**
+     * @return the minimum value of the sample, or NaN if the sample is empty
+     */
+    public double min() {
+        return min;
+    }
+
+    /**
+     * @return the maximum value of the sample, or NaN if the sample is empty
+     */
+    @Override
+    public double max() {
+        return max;
+    }
+
+    /**
+     * @return the number of values in the sample
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return the sum of all values in the sample
+     */
+    public double sum() {
+        return sum;
+    }
+
+    public double lowestTrackableValue() {
+        return lowestTrackableValue;
+    }
+
+    public double highestTrackableValue() {
+        return highestTrackableValue;
+    }
+
+    /**
+     * @return the number of preallocated buckets
+     */
+    public int bucketCount() {
+        return counts.length;
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.basic;
+
+import org.tools4j.metric.api.LongMetricRecorder;
+import org.tools4j.metric.api.Mergeable;
+import org.tools4j.metric.api.Metric;
+import org.tools4j.metric.api.MetricRecorder;
+import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.TextOutput;
+
+import java.util.Objects;
+
+/**
+ * Metric that tracks the minimum of a sampled long value, {@link Long#MAX_VALUE} if no value has been recorded.
+ * <p>
+ * Double values passed to {@link #record(double)} are rounded to the closest long value.
+ */
+public class LongMinMetric implements Metric, MetricRecorder, LongMetricRecorder, Mergeable<LongMinMetric> {
+
+    private long min = Long.MAX_VALUE;
+    private final MetricRecorder recorder = this::record;
+    private final LongMetricRecorder longRecorder = this::record;
+    private final Printer<? super LongMinMetric> printer;
+
+    public LongMinMetric() {
+        this("min");
+    }
+
+    public LongMinMetric(final String name) {
+        this((metric, output) -> output.append(name).append('=').append(metric.min()));
+    }
+
+    public LongMinMetric(final Printer<? super LongMinMetric> printer) {
+        this.printer = Objects.requireNonNull(printer);
+    }
+
+    @Override
+    public MetricRecorder recorder() {
+        return recorder;
+    }
+
+    @Override
+    public LongMetricRecorder longRecorder() {
+        return longRecorder;
+    }
+
+    @Override
+    public void record(final double value) {
+        record(Math.round(value));
+    }
+
+    @Override
+    public void record(final long value) {
+        if (value < min) {
+            min = value;
+        }
+    }
+
+    @Override
+    public void mergeFrom(final LongMinMetric other) {
+        record(other.min);
+    }
+
+    @Override
+    public void reset() {
+        min = Long.MAX_VALUE;
+    }
+
+    @Override
+    public void print(final TextOutput output) {
+        printer.print(this, output);
+    }
+
+    public long min() {
+        return min;
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.basic;
+
+import org.tools4j.metric.api.LongMetricRecorder;
+import org.tools4j.metric.api.Metric;
+import org.tools4j.metric.api.MetricRecorder;
+import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.Subtractable;
+import org.tools4j.metric.api.TextOutput;
+
+import java.util.Objects;
+
+/**
+ * Metric that tracks the sum of a sampled long value.  The sum saturates at {@link Long#MAX_VALUE} and
+ * {@link Long#MIN_VALUE} instead of overflowing silently, and {@link #overflow()} indicates that this has happened.
+ * <p>
+ * Double values passed to {@link #record(double)} are rounded to the closest long value.
+ */
+public class LongSumMetric implements Metric, MetricRecorder, LongMetricRecorder, Subtractable<LongSumMetric> {
+
+    private long sum;
+    private boolean overflow;
+    private final MetricRecorder recorder = this::record;
+    private final LongMetricRecorder longRecorder = this::record;
+    private final Printer<? super LongSumMetric> printer;
+
+    public LongSumMetric() {
+        this("sum");
+    }
+
+    public LongSumMetric(final String name) {
+        this((metric, output) -> output.append(name).append('=').append(metric.sum()));
+    }
+
+    public LongSumMetric(final Printer<? super LongSumMetric> printer) {
+        this.printer = Objects.requireNonNull(printer);
+    }
+
+    @Override
+    public MetricRecorder recorder() {
+        return recorder;
+    }
+
+    @Override
+    public LongMetricRecorder longRecorder() {
+        return longRecorder;
+    }
+
+    @Override
+    public void record(final double value) {
+        record(Math.round(value));
+    }
+
+    @Override
+    public void record(final long value) {
+        final long result = sum + value;
+        if (((sum ^ result) & (value ^ result)) < 0) {
+            sum = value < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+            overflow = true;
+        } else {
+            sum = result;
+        }
+    }
+
+    @Override
+    public void mergeFrom(final LongSumMetric other) {
+        record(other.sum);
+        overflow |= other.overflow;
+    }
+
+    @Override
+    public void subtract(final LongSumMetric other) {
+        final long result = sum - other.sum;
+        if (((sum ^ other.sum) & (sum ^ result)) < 0) {
+            sum = other.sum < 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+            overflow = true;
+        } else {
+            sum = result;
+        }
+        overflow |= other.overflow;
+    }
+
+    @Override
+    public void reset() {
+        sum = 0;
+        overflow = false;
+    }
+
+    @Override
+    public void print(final TextOutput output) {
+        printer.print(this, output);
+    }
+
+    public long sum() {
+        return sum;
+    }
+
+    /**
+     * @return true if the sum has overflowed since the last reset and is saturated at min or max long value
+     */
+    public boolean overflow() {
+        return overflow;
+    }
+}
@@ -23,19 +23,25 @@
  */
 package org.tools4j.metric.basic;
 
+import org.tools4j.metric.api.ExpectedIntervalRecorder;
+import org.tools4j.metric.api.LongMetricRecorder;
+import org.tools4j.metric.api.Mergeable;
 import org.tools4j.metric.api.Metric;
 import org.tools4j.metric.api.MetricRecorder;
 import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.TextOutput;
 
 import java.util.Objects;
 
 /**
  * Metric that tracks the maximum of a sampled value.
  */
-public class MaxMetric implements Metric, MetricRecorder {
+public class MaxMetric implements Metric, MetricRecorder, LongMetricRecorder, ExpectedIntervalRecorder,
+        Mergeable<MaxMetric> {
 
     private double max = Double.NaN;
     private final MetricRecorder recorder = this::record;
+    private final LongMetricRecorder longRecorder = this::record;
     private final Printer<? super MaxMetric> printer;
 
     public MaxMetric() {
@@ -55,18 +61,47 @@ public class MaxMetric implements Metric, MetricRecorder {
         return recorder;
     }
 
+    @Override
+    public LongMetricRecorder longRecorder() {
+        return longRecorder;
+    }
+
     @Override
     public void record(final double value) {
         max = Double.isNaN(max) ? value : Double.max(max, value);
     }
 
+    @Override
+    public void record(final long value) {
+        record((double)value);
+    }
+
+    /**
+     * Records the value;  back-filled values are all smaller than value hence the maximum is not affected by the
+     * correction.
+     *
+     * @param value             the value to record
+     * @param expectedInterval  the expected interval between two samples
+     */
+    @Override
+    public void recordWithExpectedInterval(final double value, final double expectedInterval) {
+        record(value);
+    }
+
+    @Override
+    public void mergeFrom(final MaxMetric other) {
+        if (!Double.isNaN(other.max)) {
+            record(other.max);
+        }
+    }
+
     @Override
     public void reset() {
         max = Double.NaN;
     }
 
     @Override
-    public void print(final StringBuilder output) {
+    public void print(final TextOutput output) {
         printer.print(this, output);
     }
 
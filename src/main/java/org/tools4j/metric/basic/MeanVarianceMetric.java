@@ -23,9 +23,12 @@
  */
 package org.tools4j.metric.basic;
 
+import org.tools4j.metric.api.LongMetricRecorder;
 import org.tools4j.metric.api.Metric;
 import org.tools4j.metric.api.MetricRecorder;
 import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.Subtractable;
+import org.tools4j.metric.api.TextOutput;
 
 import java.util.Objects;
 
@@ -34,12 +37,14 @@ import java.util.Objects;
  * <p>
  * The implementation is based on Welford’s Algorithm given in Knuth Vol 2, p 232.
  */
-public class MeanVarianceMetric implements Metric, MetricRecorder {
+public class MeanVarianceMetric implements Metric, MetricRecorder, LongMetricRecorder,
+        Subtractable<MeanVarianceMetric> {
 
     private long count = 0;
     private double mean = Double.NaN;
     private double s = Double.NaN;
     private final MetricRecorder recorder = this::record;
+    private final LongMetricRecorder longRecorder = this::record;
     private final Printer<? super MeanVarianceMetric> printer;
 
     public MeanVarianceMetric() {
@@ -63,6 +68,11 @@ public class MeanVarianceMetric implements Metric, MetricRecorder {
         return recorder;
     }
 
+    @Override
+    public LongMetricRecorder longRecorder() {
+        return longRecorder;
+    }
+
     @Override
     public void record(final double value) {
         count++;
@@ -76,6 +86,59 @@ public class MeanVarianceMetric implements Metric, MetricRecorder {
         }
     }
 
+    @Override
+    public void record(final long value) {
+        record((double)value);
+    }
+
+    /**
+     * Merges other into this metric using Chan's parallel variance formula.
+     *
+     * @param other the metric to merge into this metric
+     */
+    @Override
+    public void mergeFrom(final MeanVarianceMetric other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            count = other.count;
+            mean = other.mean;
+            s = other.s;
+            return;
+        }
+        final long n = count + other.count;
+        final double delta = other.mean - mean;
+        mean += delta * other.count / n;
+        s += other.s + delta * delta * count * other.count / n;
+        count = n;
+    }
+
+    /**
+     * Removes other from this metric by inverting Chan's parallel variance formula.
+     *
+     * @param other the metric to subtract from this metric
+     */
+    @Override
+    public void subtract(final MeanVarianceMetric other) {
+        if (other.count > count) {
+            throw new IllegalArgumentException("Cannot subtract " + other.count + " values from " + count);
+        }
+        if (other.count == 0) {
+            return;
+        }
+        final long n = count - other.count;
+        if (n == 0) {
+            reset();
+            return;
+        }
+        final double newMean = mean + (mean - other.mean) * other.count / n;
+        final double delta = other.mean - newMean;
+        s = Math.max(0, s - other.s - delta * delta * n * other.count / count);
+        mean = newMean;
+        count = n;
+    }
+
     @Override
     public void reset() {
         count = 0;
@@ -84,7 +147,7 @@ public class MeanVarianceMetric implements Metric, MetricRecorder {
     }
 
     @Override
-    public void print(final StringBuilder output) {
+    public void print(final TextOutput output) {
         printer.print(this, output);
     }
 
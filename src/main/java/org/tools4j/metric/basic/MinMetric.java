@@ -23,19 +23,23 @@
  */
 package org.tools4j.metric.basic;
 
+import org.tools4j.metric.api.LongMetricRecorder;
+import org.tools4j.metric.api.Mergeable;
 import org.tools4j.metric.api.Metric;
 import org.tools4j.metric.api.MetricRecorder;
 import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.TextOutput;
 
 import java.util.Objects;
 
 /**
  * Metric that tracks the minimum of a sampled value.
  */
-public class MinMetric implements Metric, MetricRecorder {
+public class MinMetric implements Metric, MetricRecorder, LongMetricRecorder, Mergeable<MinMetric> {
 
     private double min = Double.NaN;
     private final MetricRecorder recorder = this::record;
+    private final LongMetricRecorder longRecorder = this::record;
     private final Printer<? super MinMetric> printer;
 
     public MinMetric() {
@@ -55,18 +59,35 @@ public class MinMetric implements Metric, MetricRecorder {
         return recorder;
     }
 
+    @Override
+    public LongMetricRecorder longRecorder() {
+        return longRecorder;
+    }
+
     @Override
     public void record(final double value) {
         min = Double.isNaN(min) ? value : Double.min(min, value);
     }
 
+    @Override
+    public void record(final long value) {
+        record((double)value);
+    }
+
+    @Override
+    public void mergeFrom(final MinMetric other) {
+        if (!Double.isNaN(other.min)) {
+            record(other.min);
+        }
+    }
+
     @Override
     public void reset() {
         min = Double.NaN;
     }
 
     @Override
-    public void print(final StringBuilder output) {
+    public void print(final TextOutput output) {
         printer.print(this, output);
     }
 
@@ -25,6 +25,7 @@ package org.tools4j.metric.basic;
 
 import org.tools4j.metric.api.Printable;
 import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.TextOutput;
 
 import java.util.Objects;
 
@@ -42,7 +43,7 @@ public class RatioPrintable implements Printable {
     }
 
     public RatioPrintable(final String name, final SumMetric numerator, final SumMetric denominator) {
-        this(numerator, denominator, (metric, output) -> output.append(name).append('=').append((float)metric.ratio()));
+        this(numerator, denominator, (metric, output) -> output.append(name).append('=').append(metric.ratio()));
     }
 
     public RatioPrintable(final SumMetric numerator, final SumMetric denominator,
@@ -65,7 +66,7 @@ public class RatioPrintable implements Printable {
     }
 
     @Override
-    public void print(final StringBuilder output) {
+    public void print(final TextOutput output) {
         printer.print(this, output);
     }
 }
@@ -0,0 +1,270 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.basic;
+
+import org.tools4j.metric.api.LongMetricRecorder;
+import org.tools4j.metric.api.Mergeable;
+import org.tools4j.metric.api.Metric;
+import org.tools4j.metric.api.MetricRecorder;
+import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.TextOutput;
+
+import java.util.Objects;
+
+/**
+ * Metric that tracks count, sum, min, max, mean and variance of a sampled value in a single pass.  It replaces a
+ * {@link GroupPrintable} of separate metrics with one compact object updated by a single call per sample.
+ * <p>
+ * Mean and variance are computed as in {@link MeanVarianceMetric}.  The statistics to print are selected via
+ * {@link Stat} constants passed to the constructor or to {@link #printer(String, Stat...)}.
+ */
+public class StatsMetric implements Metric, MetricRecorder, LongMetricRecorder, Mergeable<StatsMetric> {
+
+    /**
+     * Statistics that can be printed.
+     */
+    public enum Stat {
+        COUNT("count"),
+        SUM("sum"),
+        MIN("min"),
+        MAX("max"),
+        MEAN("mean"),
+        VARIANCE("var"),
+        STD("std");
+
+        private final String defaultName;
+
+        Stat(final String defaultName) {
+            this.defaultName = defaultName;
+        }
+
+        public String defaultName() {
+            return defaultName;
+        }
+
+        public double value(final StatsMetric metric) {
+            switch (this) {
+                case COUNT: return metric.count();
+                case SUM: return metric.sum();
+                case MIN: return metric.min();
+                case MAX: return metric.max();
+                case MEAN: return metric.mean();
+                case VARIANCE: return metric.varianceUnbiased();
+                case STD: return metric.stdDevUnbiased();
+                default: throw new IllegalArgumentException("Unsupported stat: " + this);
+            }
+        }
+    }
+
+    private long count = 0;
+    private double sum = 0;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    private double mean = Double.NaN;
+    private double s = Double.NaN;
+    private final MetricRecorder recorder = this::record;
+    private final LongMetricRecorder longRecorder = this::record;
+    private final Printer<? super StatsMetric> printer;
+
+    public StatsMetric() {
+        this(Stat.COUNT, Stat.MIN, Stat.MAX, Stat.MEAN, Stat.STD);
+    }
+
+    public StatsMetric(final Stat... stats) {
+        this(printer(" ", stats));
+    }
+
+    public StatsMetric(final Printer<? super StatsMetric> printer) {
+        this.printer = Objects.requireNonNull(printer);
+    }
+
+    /**
+     * Returns a printer for the given statistics using their default names, for instance
+     * {@code count=3 min=1.0 max=3.0}.  The count is printed as integer value.
+     *
+     * @param separator the separator between statistics
+     * @param stats     the statistics to print
+     * @return a printer for the given statistics
+     */
+    public static Printer<StatsMetric> printer(final String separator, final Stat... stats) {
+        Objects.requireNonNull(separator);
+        final Stat[] st = stats.clone();
+        for (final Stat stat : st) {
+            Objects.requireNonNull(stat);
+        }
+        return (metric, output) -> {
+            for (int i = 0; i < st.length; i++) {
+                if (i > 0) {
+                    output.append(separator);
+                }
+                output.append(st[i].defaultName()).append('=');
+                if (st[i] == Stat.COUNT) {
+                    output.append(metric.count());
+                } else {
+                    output.append(st[i].value(metric));
+                }
+            }
+        };
+    }
+
+    @Override
+    public MetricRecorder recorder() {
+        return recorder;
+    }
+
+    @Override
+    public LongMetricRecorder longRecorder() {
+        return longRecorder;
+    }
+
+    @Override
+    public void record(final double value) {
+        count++;
+        sum += value;
+        if (count > 1) {
+            min = Double.min(min, value);
+            max = Double.max(max, value);
+            final double delta = value - mean;
+            mean = mean + delta / count;
+            s += delta * (value - mean);
+        } else {
+            min = value;
+            max = value;
+            mean = value;
+            s = 0;
+        }
+    }
+
+    @Override
+    public void record(final long value) {
+        record((double)value);
+    }
+
+    /**
+     * Merges other into this metric using Chan's parallel variance formula for mean and variance.
+     *
+     * @param other the metric to merge into this metric
+     */
+    @Override
+    public void mergeFrom(final StatsMetric other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            count = other.count;
+            sum = other.sum;
+            min = other.min;
+            max = other.max;
+            mean = other.mean;
+            s = other.s;
+            return;
+        }
+        final long n = count + other.count;
+        final double delta = other.mean - mean;
+        sum += other.sum;
+        min = Double.min(min, other.min);
+        max = Double.max(max, other.max);
+        mean += delta * other.count / n;
+        s += other.s + delta * delta * count * other.count / n;
+        count = n;
+    }
+
+    @Override
+    public void reset() {
+        count = 0;
+        sum = 0;
+        min = Double.NaN;
+        max = Double.NaN;
+        mean = Double.NaN;
+        s = Double.NaN;
+    }
+
+    @Override
+    public void print(final TextOutput output) {
+        printer.print(this, output);
+    }
+
+    /**
+     * @return the number of values in the sample
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return the sum of all values in the sample
+     */
+    public double sum() {
+        return sum;
+    }
+
+    /**
+     * @return the minimum value of the sample, or NaN if the sample is empty
+     */
+    public double min() {
+        return min;
+    }
+
+    /**
+     * @return the maximum value of the sample, or NaN if the sample is empty
+     */
+    public double max() {
+        return max;
+    }
+
+    /**
+     * @return the mean value of the sample
+     */
+    public double mean() {
+        return mean;
+    }
+
+    /**
+     * @return the bias corrected variance of the sample (using the {@code (n-1)} method), or NaN if {@code n < 2}
+     */
+    public double varianceUnbiased() {
+        return count > 1 ? s / (count - 1) : Double.NaN;
+    }
+
+    /**
+     * @return the biased variance of the sample (using the {@code (n)} method), or NaN if {@code n == 0}
+     */
+    public double variance() {
+        return s / count;
+    }
+
+    /**
+     * @return the bias corrected standard deviation of the sample (using the {@code (n-1)} method), or NaN if {@code n < 2}
+     */
+    public double stdDevUnbiased() {
+        return Math.sqrt(varianceUnbiased());
+    }
+
+    /**
+     * @return the biased standard deviation of the sample (using the {@code (n)} method), or NaN if {@code n == 0}
+     */
+    public double stdDev() {
+        return Math.sqrt(variance());
+    }
+}
@@ -23,19 +23,23 @@
  */
 package org.tools4j.metric.basic;
 
+import org.tools4j.metric.api.LongMetricRecorder;
 import org.tools4j.metric.api.Metric;
 import org.tools4j.metric.api.MetricRecorder;
 import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.Subtractable;
+import org.tools4j.metric.api.TextOutput;
 
 import java.util.Objects;
 
 /**
  * Metric that tracks the sum of a sampled value.
  */
-public class SumMetric implements Metric, MetricRecorder {
+public class SumMetric implements Metric, MetricRecorder, LongMetricRecorder, Subtractable<SumMetric> {
 
     private double sum;
     private final MetricRecorder recorder = this::record;
+    private final LongMetricRecorder longRecorder = this::record;
     private final Printer<? super SumMetric> printer;
 
     public SumMetric() {
@@ -55,18 +59,38 @@ public class SumMetric implements Metric, MetricRecorder {
         return recorder;
     }
 
+    @Override
+    public LongMetricRecorder longRecorder() {
+        return longRecorder;
+    }
+
     @Override
     public void record(final double value) {
         sum += value;
     }
 
+    @Override
+    public void record(final long value) {
+        record((double)value);
+    }
+
+    @Override
+    public void mergeFrom(final SumMetric other) {
+        sum += other.sum;
+    }
+
+    @Override
+    public void subtract(final SumMetric other) {
+        sum -= other.sum;
+    }
+
     @Override
     public void reset() {
         sum = 0;
     }
 
     @Override
-    public void print(final StringBuilder output) {
+    public void print(final TextOutput output) {
         printer.print(this, output);
     }
 
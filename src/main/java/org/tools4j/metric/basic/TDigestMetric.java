@@ -0,0 +1,293 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.basic;
+
+import org.tools4j.metric.api.LongMetricRecorder;
+import org.tools4j.metric.api.MetricRecorder;
+import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.QuantileMetric;
+import org.tools4j.metric.api.TextOutput;
+
+import java.util.Objects;
+
+/**
+ * Metric that estimates quantiles of a sampled value of unknown range with bounded memory, based on the merging
+ * t-digest by Ted Dunning and Otmar Ertl.  Accuracy is highest for extreme quantiles such as p99.9 and is controlled by
+ * the compression parameter;  the number of centroids never exceeds roughly twice the compression.
+ * <p>
+ * Recorded values are collected in a buffer that is merged into the centroids when full or before quantiles are
+ * read.  All arrays are allocated at construction time and neither recording nor reading allocates.  Minimum and
+ * maximum are tracked exactly.
+ * <p>
+ * Note that reading quantiles or the centroid count modifies the digest as it merges buffered values.  Reading is
+ * therefore not thread safe even if no values are recorded concurrently, and must be confined to the recording
+ * thread or be externally synchronized with it, for instance by reading the snapshot of an
+ * {@link org.tools4j.metric.concurrent.IntervalMetric IntervalMetric}.
+ */
+public class TDigestMetric implements QuantileMetric, MetricRecorder, LongMetricRecorder {
+
+    public static final double DEFAULT_COMPRESSION = 100;
+
+    private final double compression;
+    private final double[] buffer;
+    private int bufferSize = 0;
+    private double[] means;
+    private double[] weights;
+    private double[] tempMeans;
+    private double[] tempWeights;
+    private int centroids = 0;
+    private long count = 0;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    private final MetricRecorder recorder = this::record;
+    private final LongMetricRecorder longRecorder = this::record;
+    private final Printer<? super TDigestMetric> printer;
+
+    public TDigestMetric() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    public TDigestMetric(final double compression) {
+        this(compression, percentilePrinter(" ", 50, 99, 99.9));
+    }
+
+    public TDigestMetric(final double compression, final Printer<? super TDigestMetric> printer) {
+        if (!(compression >= 10 && compression <= 10000)) {
+            throw new IllegalArgumentException("Compression must be in [10, 10000]: " + compression);
+        }
+        this.compression = compression;
+        final int capacity = 2 * (int)Math.ceil(compression) + 10;
+        this.buffer = new double[5 * (int)Math.ceil(compression)];
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        this.tempMeans = new double[capacity];
+        this.tempWeights = new double[capacity];
+        this.printer = Objects.requireNonNull(printer);
+    }
+
+    /**
+     * Returns a printer that prints the given percentiles followed by the maximum, for instance
+     * {@code "p50=12.0 p99=26.0 p99.9=31.0 max=35.0"} for percentiles 50, 99 and 99.9.
+     *
+     * @param separator     the separator between printed values
+     * @param percentiles   the percentiles to print, each in {@code [0, 100]}
+     * @return a printer for t-digest metrics
+     */
+    public static Printer<TDigestMetric> percentilePrinter(final String separator, final double... percentiles) {
+        return QuantileMetric.percentilePrinter(separator, percentiles);
+    }
+
+    @Override
+    public MetricRecorder recorder() {
+        return recorder;
+    }
+
+    @Override
+    public LongMetricRecorder longRecorder() {
+        return longRecorder;
+    }
+
+    @Override
+    public void record(final double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (bufferSize == buffer.length) {
+            merge();
+        }
+        buffer[bufferSize++] = value;
+        count++;
+        if (count > 1) {
+            min = Double.min(min, value);
+            max = Double.max(max, value);
+        } else {
+            min = value;
+            max = value;
+        }
+    }
+
+    @Override
+    public void record(final long value) {
+        record((double)value);
+    }
+
+    @Override
+    public void reset() {
+        bufferSize = 0;
+        centroids = 0;
+        count = 0;
+        min = Double.NaN;
+        max = Double.NaN;
+    }
+
+    @Override
+    public void print(final TextOutput output) {
+        printer.print(this, output);
+    }
+
+    /**
+     * Returns an estimate of the value at the given quantile, interpolated between centroids.
+     *
+     * @param quantile the quantile in {@code [0, 1]}, for instance 0.99 for the 99th percentile
+     * @return the estimated value at the given quantile, or NaN if the sample is empty
+     */
+    @Override
+    public double valueAtQuantile(final double quantile) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        merge();
+        if (centroids == 1) {
+            return means[0];
+        }
+        final double index = Math.max(0, Math.min(1, quantile)) * count;
+        if (index < weights[0] / 2) {
+            return min + 2 * index / weights[0] * (means[0] - min);
+        }
+        double weightSoFar = weights[0] / 2;
+        for (int i = 0; i < centroids - 1; i++) {
+            final double delta = (weights[i] + weights[i + 1]) / 2;
+            if (weightSoFar + delta > index) {
+                return means[i] + (index - weightSoFar) / delta * (means[i + 1] - means[i]);
+            }
+            weightSoFar += delta;
+        }
+        final int last = centroids - 1;
+        final double lastHalf = weights[last] / 2;
+        return index >= count ? max : means[last] + (index - weightSoFar) / lastHalf * (max - means[last]);
+    }
+
+    /**
+     * @return the minimum value of the sample, or NaN if the sample is empty
+     */
+    public double min() {
+        return min;
+    }
+
+    /**
+     * @return the maximum value of the sample, or NaN if the sample is empty
+     */
+    @Override
+    public double max() {
+        return max;
+    }
+
+    /**
+     * @return the number of values in the sample
+     */
+    public long count() {
+        return count;
+    }
+
+    public double compression() {
+        return compression;
+    }
+
+    /**
+     * @return the current number of centroids after merging buffered values
+     */
+    public int centroidCount() {
+        merge();
+        return centroids;
+    }
+
+    private void merge() {
+        if (bufferSize == 0) {
+            return;
+        }
+        heapSort(buffer, bufferSize);
+        final double[] means = this.means;
+        final double[] weights = this.weights;
+        final double[] outMeans = this.tempMeans;
+        final double[] outWeights = this.tempWeights;
+        final double totalWeight = count;
+        final int capacity = outMeans.length;
+        int last = -1;
+        double weightSoFar = 0;
+        double weightLimit = 0;
+        for (int b = 0, c = 0; b < bufferSize || c < centroids; ) {
+            final double mean;
+            final double weight;
+            if (c < centroids && (b >= bufferSize || means[c] <= buffer[b])) {
+                mean = means[c];
+                weight = weights[c++];
+            } else {
+                mean = buffer[b++];
+                weight = 1;
+            }
+            if (last >= 0 && (weightSoFar + outWeights[last] + weight <= weightLimit || last == capacity - 1)) {
+                outWeights[last] += weight;
+                outMeans[last] += weight * (mean - outMeans[last]) / outWeights[last];
+            } else {
+                if (last >= 0) {
+                    weightSoFar += outWeights[last];
+                }
+                last++;
+                outMeans[last] = mean;
+                outWeights[last] = weight;
+                weightLimit = totalWeight * integratedQ(integratedLocation(weightSoFar / totalWeight) + 1);
+            }
+        }
+        this.means = outMeans;
+        this.weights = outWeights;
+        this.tempMeans = means;
+        this.tempWeights = weights;
+        this.centroids = last + 1;
+        this.bufferSize = 0;
+    }
+
+    private double integratedLocation(final double q) {
+        return compression * (Math.asin(2 * q - 1) + Math.PI / 2) / Math.PI;
+    }
+
+    private double integratedQ(final double k) {
+        return (Math.sin(Math.min(k, compression) * Math.PI / compression - Math.PI / 2) + 1) / 2;
+    }
+
+    private static void heapSort(final double[] values, final int length) {
+        for (int i = length / 2 - 1; i >= 0; i--) {
+            siftDown(values, i, length);
+        }
+        for (int end = length - 1; end > 0; end--) {
+            final double top = values[0];
+            values[0] = values[end];
+            values[end] = top;
+            siftDown(values, 0, end);
+        }
+    }
+
+    private static void siftDown(final double[] values, int index, final int length) {
+        final double value = values[index];
+        for (int child; (child = 2 * index + 1) < length; index = child) {
+            if (child + 1 < length && values[child + 1] > values[child]) {
+                child++;
+            }
+            if (values[child] <= value) {
+                break;
+            }
+            values[index] = values[child];
+        }
+        values[index] = value;
+    }
+}
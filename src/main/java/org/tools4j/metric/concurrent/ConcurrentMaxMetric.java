@@ -0,0 +1,91 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.concurrent;
+
+import org.tools4j.metric.api.Metric;
+import org.tools4j.metric.api.MetricRecorder;
+import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.TextOutput;
+import org.tools4j.metric.basic.MaxMetric;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread safe variant of {@link MaxMetric} that tracks the maximum of a sampled value.
+ * <p>
+ * Recording threads update cache line padded stripes and never allocate;  compare-and-set is only attempted if the
+ * value is a new maximum for the stripe.  The stripes are folded together when the maximum is read.
+ * Reading and resetting are weakly consistent with respect to concurrent recording.
+ */
+public class ConcurrentMaxMetric implements Metric, MetricRecorder {
+
+    private final AtomicLongArray cells;
+    private final int stripes;
+    private final MetricRecorder recorder = this::record;
+    private final Printer<? super ConcurrentMaxMetric> printer;
+
+    public ConcurrentMaxMetric() {
+        this("max");
+    }
+
+    public ConcurrentMaxMetric(final String name) {
+        this((metric, output) -> output.append(name).append('=').append(metric.max()));
+    }
+
+    public ConcurrentMaxMetric(final Printer<? super ConcurrentMaxMetric> printer) {
+        this(Stripes.DEFAULT_STRIPES, printer);
+    }
+
+    public ConcurrentMaxMetric(final int stripes, final Printer<? super ConcurrentMaxMetric> printer) {
+        this.stripes = Stripes.stripeCount(stripes);
+        this.cells = Stripes.newCells(this.stripes, 1);
+        this.printer = Objects.requireNonNull(printer);
+        reset();
+    }
+
+    @Override
+    public MetricRecorder recorder() {
+        return recorder;
+    }
+
+    @Override
+    public void record(final double value) {
+        Stripes.maxDouble(cells, stripes, 0, value);
+    }
+
+    @Override
+    public void reset() {
+        Stripes.fill(cells, 0, Double.doubleToRawLongBits(Double.NaN));
+    }
+
+    @Override
+    public void print(final TextOutput output) {
+        printer.print(this, output);
+    }
+
+    public double max() {
+        return Stripes.maxDouble(cells, 0);
+    }
+}
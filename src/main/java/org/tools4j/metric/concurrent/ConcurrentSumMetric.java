@@ -0,0 +1,90 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.concurrent;
+
+import org.tools4j.metric.api.Metric;
+import org.tools4j.metric.api.MetricRecorder;
+import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.TextOutput;
+import org.tools4j.metric.basic.SumMetric;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread safe variant of {@link SumMetric} that tracks the sum of a sampled value.
+ * <p>
+ * Recording threads add to cache line padded stripes and never allocate;  the stripes are folded together when the
+ * sum is read.  Reading and resetting are weakly consistent with respect to concurrent recording.
+ */
+public class ConcurrentSumMetric implements Metric, MetricRecorder {
+
+    private final AtomicLongArray cells;
+    private final int stripes;
+    private final MetricRecorder recorder = this::record;
+    private final Printer<? super ConcurrentSumMetric> printer;
+
+    public ConcurrentSumMetric() {
+        this("sum");
+    }
+
+    public ConcurrentSumMetric(final String name) {
+        this((metric, output) -> output.append(name).append('=').append(metric.sum()));
+    }
+
+    public ConcurrentSumMetric(final Printer<? super ConcurrentSumMetric> printer) {
+        this(Stripes.DEFAULT_STRIPES, printer);
+    }
+
+    public ConcurrentSumMetric(final int stripes, final Printer<? super ConcurrentSumMetric> printer) {
+        this.stripes = Stripes.stripeCount(stripes);
+        this.cells = Stripes.newCells(this.stripes, 1);
+        this.printer = Objects.requireNonNull(printer);
+        reset();
+    }
+
+    @Override
+    public MetricRecorder recorder() {
+        return recorder;
+    }
+
+    @Override
+    public void record(final double value) {
+        Stripes.addDouble(cells, stripes, 0, value);
+    }
+
+    @Override
+    public void reset() {
+        Stripes.fill(cells, 0, Double.doubleToRawLongBits(0));
+    }
+
+    @Override
+    public void print(final TextOutput output) {
+        printer.print(this, output);
+    }
+
+    public double sum() {
+        return Stripes.sumDouble(cells, 0);
+    }
+}
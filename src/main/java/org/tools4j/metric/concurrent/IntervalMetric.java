@@ -0,0 +1,136 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.concurrent;
+
+import org.tools4j.metric.api.Metric;
+import org.tools4j.metric.api.MetricRecorder;
+import org.tools4j.metric.api.TextOutput;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Double buffered metric that records into an active metric instance while the metric of the previous interval is
+ * stable and can be printed.  Calling {@link #swap()} makes the snapshot the new active instance after resetting it
+ * and returns the previously active metric as new snapshot.
+ * <p>
+ * Recording threads never block;  they are coordinated with the swapping thread through a
+ * {@link WriterReaderPhaser} which guarantees that no sample is lost or partially applied when the metrics are
+ * swapped.  Note however that the wrapped metric must itself be thread safe if multiple threads record concurrently.
+ * <p>
+ * Printing this metric prints the snapshot, hence a reporter would usually invoke {@link #swap()} and then
+ * {@link #print(TextOutput)}.  Multiple interval metrics can be swapped together through an
+ * {@link IntervalRoller}.
+ *
+ * @param <M> the type of the wrapped metric
+ */
+public class IntervalMetric<M extends Metric> implements Metric, MetricRecorder {
+
+    private final WriterReaderPhaser phaser;
+    private volatile M active;
+    private M snapshot;
+    private final MetricRecorder recorder = this::record;
+
+    public IntervalMetric(final Supplier<? extends M> factory) {
+        this(new WriterReaderPhaser(), factory);
+    }
+
+    IntervalMetric(final WriterReaderPhaser phaser, final Supplier<? extends M> factory) {
+        this.phaser = Objects.requireNonNull(phaser);
+        this.active = Objects.requireNonNull(factory.get());
+        this.snapshot = Objects.requireNonNull(factory.get());
+    }
+
+    @Override
+    public MetricRecorder recorder() {
+        return recorder;
+    }
+
+    @Override
+    public void record(final double value) {
+        final long criticalValue = phaser.writerCriticalSectionEnter();
+        try {
+            active.recorder().record(value);
+        } finally {
+            phaser.writerCriticalSectionExit(criticalValue);
+        }
+    }
+
+    /**
+     * Resets the snapshot and swaps it with the active metric;  this method blocks until all recording threads have
+     * finished recording into the previously active metric.
+     *
+     * @return the new snapshot with all values recorded since the last swap, stable until the next swap
+     */
+    public M swap() {
+        phaser.readerLock();
+        try {
+            swapWithoutFlip();
+            phaser.flipPhase();
+            return snapshot;
+        } finally {
+            phaser.readerUnlock();
+        }
+    }
+
+    /**
+     * Swaps active and snapshot metric;  the caller must hold the reader lock and flip the phaser.
+     */
+    void swapWithoutFlip() {
+        final M next = snapshot;
+        next.reset();
+        snapshot = active;
+        active = next;
+    }
+
+    /**
+     * Discards all values recorded since the last swap and resets the snapshot.
+     */
+    @Override
+    public void reset() {
+        swap().reset();
+    }
+
+    /**
+     * Prints the snapshot, that is, the values recorded in the interval ending with the last swap.
+     *
+     * @param output the output to print to
+     */
+    @Override
+    public void print(final TextOutput output) {
+        snapshot().print(output);
+    }
+
+    /**
+     * @return the metric with the values recorded in the interval ending with the last swap
+     */
+    public M snapshot() {
+        phaser.readerLock();
+        try {
+            return snapshot;
+        } finally {
+            phaser.readerUnlock();
+        }
+    }
+}
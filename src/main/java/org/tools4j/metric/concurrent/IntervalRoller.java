@@ -0,0 +1,110 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.concurrent;
+
+import org.tools4j.metric.api.Metric;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Creates {@link IntervalMetric}s sharing a single {@link WriterReaderPhaser} so that all of them can be rolled over
+ * to the next interval with a single phase flip.  The {@link #factory(Supplier) factory} and
+ * {@link #keyedFactory(Function) keyedFactory} methods return value factories that can be passed to a repository,
+ * for instance:
+ * <pre>
+ * IntervalRoller roller = new IntervalRoller();
+ * Repository&lt;Key, IntervalMetric&lt;MaxMetric&gt;&gt; repository =
+ *         AtomicArrayRepository.forEnum(Key.class, roller.keyedFactory(key -&gt; new MaxMetric(key.name())));
+ * ...
+ * roller.roll();//all metrics of the repository now print the values of the last interval
+ * </pre>
+ * Note that metrics created by a repository but discarded because another thread created the same metric
+ * concurrently remain registered with the roller.
+ */
+public class IntervalRoller {
+
+    private final WriterReaderPhaser phaser = new WriterReaderPhaser();
+    private final List<IntervalMetric<?>> metrics = new CopyOnWriteArrayList<>();
+
+    public <M extends Metric> IntervalMetric<M> create(final Supplier<? extends M> factory) {
+        final IntervalMetric<M> metric = new IntervalMetric<>(phaser, factory);
+        metrics.add(metric);
+        return metric;
+    }
+
+    /**
+     * Returns a repository value factory creating interval metrics with the given metric factory.
+     *
+     * @param factory   the factory for the wrapped metrics
+     * @param <K>       the key type
+     * @param <M>       the type of the wrapped metric
+     * @return a value factory for a repository
+     */
+    public <K, M extends Metric> Function<K, IntervalMetric<M>> factory(final Supplier<? extends M> factory) {
+        Objects.requireNonNull(factory);
+        return key -> create(factory);
+    }
+
+    /**
+     * Returns a repository value factory creating interval metrics with a metric factory that is passed the key,
+     * for instance to name the metric after the key.
+     *
+     * @param factory   the factory for the wrapped metrics given the key
+     * @param <K>       the key type
+     * @param <M>       the type of the wrapped metric
+     * @return a value factory for a repository
+     */
+    public <K, M extends Metric> Function<K, IntervalMetric<M>> keyedFactory(
+            final Function<? super K, ? extends M> factory) {
+        Objects.requireNonNull(factory);
+        return key -> create(() -> factory.apply(key));
+    }
+
+    /**
+     * Swaps all interval metrics created by this roller;  this method blocks until all recording threads have
+     * finished recording into the previously active metrics.
+     */
+    public void roll() {
+        phaser.readerLock();
+        try {
+            for (int i = 0; i < metrics.size(); i++) {
+                metrics.get(i).swapWithoutFlip();
+            }
+            phaser.flipPhase();
+        } finally {
+            phaser.readerUnlock();
+        }
+    }
+
+    /**
+     * @return the number of interval metrics created by this roller
+     */
+    public int size() {
+        return metrics.size();
+    }
+}
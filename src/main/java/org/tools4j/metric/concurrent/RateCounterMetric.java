@@ -0,0 +1,187 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.concurrent;
+
+import org.tools4j.metric.api.LongMetricRecorder;
+import org.tools4j.metric.api.Metric;
+import org.tools4j.metric.api.MetricRecorder;
+import org.tools4j.metric.api.NanoClock;
+import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.TextOutput;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base class for monotonic counters that can be read by other threads while being incremented, see
+ * {@link SingleWriterRateCounterMetric} for a counter incremented by a single thread and
+ * {@link StripedRateCounterMetric} for a counter incremented by multiple threads.  Unlike
+ * {@link org.tools4j.metric.basic.CountMetric CountMetric} which counts recorded values and is not thread safe,
+ * recorded values are added to the counter.
+ * <p>
+ * A rate can optionally be derived by a reading thread through {@link #snapshot()} which returns the current count
+ * and updates the {@link #rate(TimeUnit) rate} since the previous snapshot.  Printing never takes a snapshot;  to
+ * print the rate with a {@link org.tools4j.metric.report.Reporter Reporter}, take the snapshot in a before-report
+ * action, for instance:
+ * <pre>
+ * reporter.beforeReport(counter::snapshot).add(counter);
+ * </pre>
+ * Snapshot and rate state is not thread safe and must be confined to a single reading thread.
+ */
+public abstract class RateCounterMetric implements Metric, MetricRecorder, LongMetricRecorder {
+
+    private final NanoClock clock;
+    private long snapshotCount;
+    private long snapshotTime;
+    private double ratePerNano = Double.NaN;
+    private final MetricRecorder recorder = this::record;
+    private final LongMetricRecorder longRecorder = this::record;
+    private final Printer<? super RateCounterMetric> printer;
+
+    protected RateCounterMetric(final NanoClock clock, final Printer<? super RateCounterMetric> printer) {
+        this.clock = Objects.requireNonNull(clock);
+        this.printer = Objects.requireNonNull(printer);
+        this.snapshotTime = clock.nanoTime();
+    }
+
+    /**
+     * Returns a printer for the count, for instance {@code "orders=42"}.
+     *
+     * @param name the name of the counter
+     * @return a printer printing the count
+     */
+    public static Printer<RateCounterMetric> printer(final String name) {
+        Objects.requireNonNull(name);
+        return (metric, output) -> output.append(name).append('=').append(metric.count());
+    }
+
+    /**
+     * Returns a printer for the count and the per-second rate between the last two {@link #snapshot() snapshots},
+     * for instance {@code "orders=42 orders.rate=3.5"} for separator {@code " "}.  The printer only reads the rate and
+     * does not take a snapshot.
+     *
+     * @param name      the name of the counter
+     * @param separator the separator between count and rate
+     * @return a printer printing count and rate
+     */
+    public static Printer<RateCounterMetric> ratePrinter(final String name, final String separator) {
+        Objects.requireNonNull(name);
+        Objects.requireNonNull(separator);
+        return (metric, output) -> output.append(name).append('=').append(metric.count())
+                .append(separator).append(name).append(".rate=").append(metric.rate(TimeUnit.SECONDS));
+    }
+
+    @Override
+    public MetricRecorder recorder() {
+        return recorder;
+    }
+
+    @Override
+    public LongMetricRecorder longRecorder() {
+        return longRecorder;
+    }
+
+    /**
+     * Adds the value truncated to long to the counter;  negative values and NaN are ignored as the counter is
+     * monotonic.
+     *
+     * @param value the value to add
+     */
+    @Override
+    public void record(final double value) {
+        if (value >= 1) {
+            add((long)value);
+        }
+    }
+
+    /**
+     * Adds the value to the counter;  negative values are ignored as the counter is monotonic.
+     *
+     * @param value the value to add
+     */
+    @Override
+    public void record(final long value) {
+        if (value > 0) {
+            add(value);
+        }
+    }
+
+    /**
+     * Increments the counter by one.
+     */
+    public abstract void increment();
+
+    /**
+     * Adds the given amount to the counter.
+     *
+     * @param amount the amount to add, not negative
+     * @throws IllegalArgumentException if amount is negative
+     */
+    public abstract void add(long amount);
+
+    /**
+     * @return the current count
+     */
+    public abstract long count();
+
+    /**
+     * Returns the current count and updates the rate since the previous snapshot, or since construction for the
+     * first snapshot.  If the counter was reset in between, the rate is derived from the count since the reset.
+     *
+     * @return the current count
+     */
+    public long snapshot() {
+        final long count = count();
+        final long time = clock.nanoTime();
+        final long elapsed = time - snapshotTime;
+        if (elapsed > 0) {
+            final long delta = count >= snapshotCount ? count - snapshotCount : count;
+            ratePerNano = delta / (double)elapsed;
+            snapshotCount = count;
+            snapshotTime = time;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the rate between the last two snapshots.
+     *
+     * @param unit the time unit of the rate, for instance seconds for a per-second rate
+     * @return the rate per time unit, or NaN if no snapshot has been taken yet
+     */
+    public double rate(final TimeUnit unit) {
+        return ratePerNano * unit.toNanos(1);
+    }
+
+    @Override
+    public void print(final TextOutput output) {
+        printer.print(this, output);
+    }
+
+    static void checkAmount(final long amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Amount cannot be negative: " + amount);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.concurrent;
+
+import org.tools4j.metric.api.LongMetricRecorder;
+import org.tools4j.metric.api.Metric;
+import org.tools4j.metric.api.MetricRecorder;
+import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.TextOutput;
+import org.tools4j.metric.basic.MeanVarianceMetric;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Single writer variant of {@link MeanVarianceMetric} whose count, mean and variance can be read consistently by
+ * other threads.  The writer guards every update with a sequence lock at the cost of two ordered stores;  readers
+ * copy the values into a {@link MeanVarianceMetric} and retry if the writer updated the values concurrently.  Reading
+ * never blocks or slows down the writer.
+ * <p>
+ * Record and reset must only be called by the writer thread.  Printing reads into a copy owned by this metric and
+ * must therefore be confined to a single reading thread;  the printer is invoked with that consistent copy.
+ */
+public class SeqLockMeanVarianceMetric implements Metric, MetricRecorder, LongMetricRecorder {
+
+    private static final AtomicLongFieldUpdater<SeqLockMeanVarianceMetric> SEQUENCE =
+            AtomicLongFieldUpdater.newUpdater(SeqLockMeanVarianceMetric.class, "sequence");
+
+    private volatile long sequence;
+    private final MeanVarianceMetric values = new MeanVarianceMetric();
+    private final MetricRecorder recorder = this::record;
+    private final LongMetricRecorder longRecorder = this::record;
+    private final MeanVarianceMetric printCopy;
+
+    public SeqLockMeanVarianceMetric() {
+        this("mean", "std", " ");
+    }
+
+    public SeqLockMeanVarianceMetric(final String meanName, final String stdName, final String separator) {
+        this.printCopy = new MeanVarianceMetric(meanName, stdName, separator);
+    }
+
+    public SeqLockMeanVarianceMetric(final Printer<? super MeanVarianceMetric> printer) {
+        this.printCopy = new MeanVarianceMetric(printer);
+    }
+
+    @Override
+    public MetricRecorder recorder() {
+        return recorder;
+    }
+
+    @Override
+    public LongMetricRecorder longRecorder() {
+        return longRecorder;
+    }
+
+    @Override
+    public void record(final double value) {
+        final long seq = sequence;
+        SEQUENCE.lazySet(this, seq + 1);
+        Fences.storeFence();
+        values.record(value);
+        SEQUENCE.lazySet(this, seq + 2);
+    }
+
+    @Override
+    public void record(final long value) {
+        record((double)value);
+    }
+
+    @Override
+    public void reset() {
+        final long seq = sequence;
+        SEQUENCE.lazySet(this, seq + 1);
+        Fences.storeFence();
+        values.reset();
+        SEQUENCE.lazySet(this, seq + 2);
+    }
+
+    /**
+     * Reads count, mean and variance consistently into the given metric, retrying while the writer updates the
+     * values.
+     *
+     * @param copy the metric to overwrite with the values of this metric
+     * @return the given metric
+     */
+    public MeanVarianceMetric read(final MeanVarianceMetric copy) {
+        long seq;
+        do {
+            seq = sequence;
+            copy.reset();
+            copy.mergeFrom(values);
+            Fences.loadFence();
+        } while ((seq & 1) != 0 || seq != sequence);
+        return copy;
+    }
+
+    @Override
+    public void print(final TextOutput output) {
+        read(printCopy).print(output);
+    }
+}
@@ -0,0 +1,181 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.concurrent;
+
+import org.tools4j.metric.api.Mergeable;
+import org.tools4j.metric.api.Metric;
+import org.tools4j.metric.api.Repository;
+import org.tools4j.metric.repository.ArrayRepository;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Repository wrapper giving every recording thread its own shard of metrics so that recording threads never share
+ * a metric and need no CAS or locking on the write path.  A thread {@link #register() registers} once and retains the
+ * returned shard for recording;  the reader merges all shards into a reusable aggregate with {@link #snapshot()}.
+ * For instance:
+ * <pre>
+ * ShardedRepository&lt;Key, SumMetric&gt; sharded = ShardedRepository.forEnum(8, Key.class, key -&gt; new SumMetric());
+ * //recording thread
+ * Repository&lt;Key, SumMetric&gt; shard = sharded.register();
+ * shard.getOrCreate(Key.ORDERS).record(1);
+ * //reporting thread
+ * sharded.snapshot().getOrNull(Key.ORDERS).print(output);
+ * </pre>
+ * Values are keyed by ordinal as in {@link ArrayRepository}.  Similar to {@link java.util.concurrent.atomic.LongAdder},
+ * a snapshot is not atomic:  values recorded concurrently with the snapshot may or may not be reflected, and a
+ * metric with multiple fields may be merged in a partially updated state.  Snapshots are exact when recording
+ * threads are quiescent.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class ShardedRepository<K, V extends Metric & Mergeable<? super V>> {
+
+    private final int length;
+    private final ToIntFunction<? super K> ordinalFunction;
+    private final Function<? super K, ? extends V> valueFactory;
+    private final Shard<K,V>[] shards;
+    private final AtomicInteger shardCount = new AtomicInteger();
+    private final ArrayRepository<K,V> snapshot;
+
+    public ShardedRepository(final int maxShards, final int length, final ToIntFunction<? super K> ordinalFunction,
+                             final Function<? super K, ? extends V> valueFactory) {
+        if (maxShards < 1) {
+            throw new IllegalArgumentException("Max shards must be positive: " + maxShards);
+        }
+        this.length = length;
+        this.ordinalFunction = Objects.requireNonNull(ordinalFunction);
+        this.valueFactory = Objects.requireNonNull(valueFactory);
+        @SuppressWarnings("unchecked")//generic array creation
+        final Shard<K,V>[] shards = (Shard<K,V>[])new Shard<?,?>[maxShards];
+        for (int i = 0; i < maxShards; i++) {
+            shards[i] = new Shard<>(this);
+        }
+        this.shards = shards;
+        this.snapshot = new ArrayRepository<>(length, ordinalFunction, valueFactory);
+    }
+
+    public static <E extends Enum<E>, V extends Metric & Mergeable<? super V>> ShardedRepository<E,V> forEnum(
+            final int maxShards, final Class<E> enumClass, final Function<? super E, ? extends V> valueFactory) {
+        return new ShardedRepository<>(maxShards, enumClass.getEnumConstants().length, Enum::ordinal, valueFactory);
+    }
+
+    /**
+     * Registers a recording thread and returns its shard.  The shard is thread confined and must only be used by
+     * the registering thread which should retain it instead of registering again.
+     *
+     * @return a new shard for the calling thread
+     * @throws IllegalStateException if max shards have already been registered
+     */
+    public Repository<K,V> register() {
+        final int index = shardCount.getAndIncrement();
+        if (index >= shards.length) {
+            shardCount.decrementAndGet();
+            throw new IllegalStateException("All " + shards.length + " shards are registered");
+        }
+        return shards[index];
+    }
+
+    /**
+     * @return the number of registered shards
+     */
+    public int shardCount() {
+        return Math.min(shardCount.get(), shards.length);
+    }
+
+    /**
+     * Merges the values of all shards into the snapshot repository and returns it.  Aggregate values are created
+     * once and reused for subsequent snapshots.  Must not be invoked by multiple threads concurrently.
+     *
+     * @return the snapshot repository with the merged values of all shards
+     */
+    public Repository<K,V> snapshot() {
+        final int shardCount = shardCount();
+        for (int ordinal = 0; ordinal < length; ordinal++) {
+            V aggregate = null;
+            for (int i = 0; i < shardCount; i++) {
+                final Shard<K,V> shard = shards[i];
+                final V value = shard.values.get(ordinal);
+                if (value != null) {
+                    if (aggregate == null) {
+                        aggregate = snapshot.getOrCreate(shard.keys.get(ordinal));
+                        aggregate.reset();
+                    }
+                    aggregate.mergeFrom(value);
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    private static final class Shard<K, V extends Metric & Mergeable<? super V>> implements Repository<K,V> {
+        private final ShardedRepository<K,V> repository;
+        private final AtomicReferenceArray<K> keys;
+        private final AtomicReferenceArray<V> values;
+
+        Shard(final ShardedRepository<K,V> repository) {
+            this.repository = repository;
+            this.keys = new AtomicReferenceArray<>(repository.length);
+            this.values = new AtomicReferenceArray<>(repository.length);
+        }
+
+        @Override
+        public boolean exists(final K key) {
+            return getOrNull(key) != null;
+        }
+
+        @Override
+        public V getOrNull(final K key) {
+            return values.get(repository.ordinalFunction.applyAsInt(key));
+        }
+
+        @Override
+        public V getOrCreate(final K key) {
+            final int ordinal = repository.ordinalFunction.applyAsInt(key);
+            V value = values.get(ordinal);
+            if (value == null) {
+                value = Objects.requireNonNull(repository.valueFactory.apply(key), "valueFactory returned null");
+                keys.lazySet(ordinal, key);
+                values.lazySet(ordinal, value);
+            }
+            return value;
+        }
+
+        @Override
+        public void forEach(final BiConsumer<? super K, ? super V> consumer) {
+            for (int ordinal = 0; ordinal < repository.length; ordinal++) {
+                final V value = values.get(ordinal);
+                if (value != null) {
+                    consumer.accept(keys.get(ordinal), value);
+                }
+            }
+        }
+    }
+}
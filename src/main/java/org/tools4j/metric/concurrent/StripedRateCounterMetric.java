@@ -0,0 +1,80 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.concurrent;
+
+import org.tools4j.metric.api.NanoClock;
+import org.tools4j.metric.api.Printer;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter incremented by multiple threads.  Incrementing threads add atomically to cache line padded stripes and never
+ * allocate;  the stripes are summed up when the count is read.  Reading and resetting are weakly consistent with
+ * respect to concurrent increments.
+ */
+public class StripedRateCounterMetric extends RateCounterMetric {
+
+    private final AtomicLongArray cells;
+    private final int stripes;
+
+    public StripedRateCounterMetric() {
+        this("count");
+    }
+
+    public StripedRateCounterMetric(final String name) {
+        this(printer(name));
+    }
+
+    public StripedRateCounterMetric(final Printer<? super RateCounterMetric> printer) {
+        this(Stripes.DEFAULT_STRIPES, NanoClock.SYSTEM, printer);
+    }
+
+    public StripedRateCounterMetric(final int stripes, final NanoClock clock,
+                                    final Printer<? super RateCounterMetric> printer) {
+        super(clock, printer);
+        this.stripes = Stripes.stripeCount(stripes);
+        this.cells = Stripes.newCells(this.stripes, 1);
+    }
+
+    @Override
+    public void increment() {
+        Stripes.addLong(cells, stripes, 0, 1);
+    }
+
+    @Override
+    public void add(final long amount) {
+        checkAmount(amount);
+        Stripes.addLong(cells, stripes, 0, amount);
+    }
+
+    @Override
+    public long count() {
+        return Stripes.sumLong(cells, 0);
+    }
+
+    @Override
+    public void reset() {
+        Stripes.fill(cells, 0, 0);
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Helper for striped cells stored in an {@link AtomicLongArray}.  Each stripe occupies {@link #PADDING} longs so that
+ * stripes used by different threads never share a cache line (nor an adjacent line fetched by the prefetcher).
+ * Double values are stored in their raw long bits representation.
+ */
+final class Stripes {
+
+    /** Number of longs per stripe, 128 bytes */
+    static final int PADDING = 16;
+
+    /** Default number of stripes, twice the number of processors rounded up to the next power of two */
+    static final int DEFAULT_STRIPES = stripeCount(2 * Runtime.getRuntime().availableProcessors());
+
+    static int stripeCount(final int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Stripes must be positive: " + stripes);
+        }
+        if (stripes > (1 << 16)) {
+            throw new IllegalArgumentException("Stripes must not exceed " + (1 << 16) + ": " + stripes);
+        }
+        final int count = Integer.highestOneBit(stripes);
+        return count == stripes ? count : count << 1;
+    }
+
+    static AtomicLongArray newCells(final int stripes, final int valuesPerStripe) {
+        if (valuesPerStripe < 1 || valuesPerStripe > PADDING) {
+            throw new IllegalArgumentException("Values per stripe must be in [1, " + PADDING + "]: " + valuesPerStripe);
+        }
+        //leading and trailing padding to keep array header and neighbouring objects off the first and last stripe
+        return new AtomicLongArray((stripes + 2) * PADDING);
+    }
+
+    static int stripes(final AtomicLongArray cells) {
+        return cells.length() / PADDING - 2;
+    }
+
+    /**
+     * Per thread probe selecting the stripe;  the probe is initialised from the thread id and moved to a different
+     * stripe whenever an update of the current stripe fails due to contention, similar to {@code Striped64}.  Threads
+     * that initially collide on the same stripe therefore spread out over time.
+     */
+    private static final class Probe {
+        int hash;
+
+        Probe() {
+            final long id = Thread.currentThread().getId();
+            final int h = (int)(id ^ (id >>> 32)) * 0x9e3779b9;
+            hash = (h ^ (h >>> 16)) | 1;
+        }
+
+        int advance() {
+            int h = hash;
+            h ^= h << 13;
+            h ^= h >>> 17;
+            h ^= h << 5;
+            return hash = h;
+        }
+    }
+
+    private static final ThreadLocal<Probe> PROBE = ThreadLocal.withInitial(Probe::new);
+
+    static int stripe(final int stripeIndex) {
+        return (stripeIndex + 1) * PADDING;
+    }
+
+    static void fill(final AtomicLongArray cells, final int offset, final long value) {
+        final int stripes = stripes(cells);
+        for (int i = 0; i < stripes; i++) {
+            cells.set(stripe(i) + offset, value);
+        }
+    }
+
+    static long sumLong(final AtomicLongArray cells, final int offset) {
+        final int stripes = stripes(cells);
+        long sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += cells.get(stripe(i) + offset);
+        }
+        return sum;
+    }
+
+    static double sumDouble(final AtomicLongArray cells, final int offset) {
+        final int stripes = stripes(cells);
+        double sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += Double.longBitsToDouble(cells.get(stripe(i) + offset));
+        }
+        return sum;
+    }
+
+    static double minDouble(final AtomicLongArray cells, final int offset) {
+        final int stripes = stripes(cells);
+        double min = Double.NaN;
+        for (int i = 0; i < stripes; i++) {
+            final double value = Double.longBitsToDouble(cells.get(stripe(i) + offset));
+            if (Double.isNaN(min) || value < min) {
+                min = value;
+            }
+        }
+        return min;
+    }
+
+    static double maxDouble(final AtomicLongArray cells, final int offset) {
+        final int stripes = stripes(cells);
+        double max = Double.NaN;
+        for (int i = 0; i < stripes; i++) {
+            final double value = Double.longBitsToDouble(cells.get(stripe(i) + offset));
+            if (Double.isNaN(max) || value > max) {
+                max = value;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Adds a long value to the current thread's stripe, moving the thread's probe if the update is contended.
+     *
+     * @param cells     the cells array
+     * @param stripes   the number of stripes, a power of two
+     * @param offset    the offset of the value within a stripe
+     * @param value     the value to add
+     * @return the index of the first value of the stripe that was updated
+     */
+    static int addLong(final AtomicLongArray cells, final int stripes, final int offset, final long value) {
+        final Probe probe = PROBE.get();
+        int stripe = stripe(probe.hash & (stripes - 1));
+        long cur;
+        while (!cells.compareAndSet(stripe + offset, cur = cells.get(stripe + offset), cur + value)) {
+            stripe = stripe(probe.advance() & (stripes - 1));
+        }
+        return stripe;
+    }
+
+    /**
+     * Adds a double value to the current thread's stripe, moving the thread's probe if the update is contended.
+     *
+     * @param cells     the cells array
+     * @param stripes   the number of stripes, a power of two
+     * @param offset    the offset of the value within a stripe
+     * @param value     the value to add
+     * @return the index of the first value of the stripe that was updated
+     */
+    static int addDouble(final AtomicLongArray cells, final int stripes, final int offset, final double value) {
+        final Probe probe = PROBE.get();
+        int stripe = stripe(probe.hash & (stripes - 1));
+        long bits;
+        while (!cells.compareAndSet(stripe + offset, bits = cells.get(stripe + offset),
+                Double.doubleToRawLongBits(Double.longBitsToDouble(bits) + value))) {
+            stripe = stripe(probe.advance() & (stripes - 1));
+        }
+        return stripe;
+    }
+
+    static void minDouble(final AtomicLongArray cells, final int stripes, final int offset, final double value) {
+        final Probe probe = PROBE.get();
+        int index = stripe(probe.hash & (stripes - 1)) + offset;
+        long bits;
+        double cur;
+        while (true) {
+            bits = cells.get(index);
+            cur = Double.longBitsToDouble(bits);
+            if (!(Double.isNaN(cur) || value < cur)
+                    || cells.compareAndSet(index, bits, Double.doubleToRawLongBits(value))) {
+                return;
+            }
+            index = stripe(probe.advance() & (stripes - 1)) + offset;
+        }
+    }
+
+    static void maxDouble(final AtomicLongArray cells, final int stripes, final int offset, final double value) {
+        final Probe probe = PROBE.get();
+        int index = stripe(probe.hash & (stripes - 1)) + offset;
+        long bits;
+        double cur;
+        while (true) {
+            bits = cells.get(index);
+            cur = Double.longBitsToDouble(bits);
+            if (!(Double.isNaN(cur) || value > cur)
+                    || cells.compareAndSet(index, bits, Double.doubleToRawLongBits(value))) {
+                return;
+            }
+            index = stripe(probe.advance() & (stripes - 1)) + offset;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Synchronization primitive for wait-free writers and a blocking reader that flips between two phases, based on
+ * the writer reader phaser introduced by Gil Tene in HdrHistogram.
+ * <p>
+ * Writers wrap their updates in {@link #writerCriticalSectionEnter()} and {@link #writerCriticalSectionExit(long)},
+ * each a single atomic increment.  The reader acquires the {@link #readerLock()}, redirects writers to a different
+ * data structure and then calls {@link #flipPhase()} which returns only after all writers that may still have seen
+ * the old data structure have left their critical section.
+ */
+public class WriterReaderPhaser {
+
+    private static final AtomicLongFieldUpdater<WriterReaderPhaser> START_EPOCH =
+            AtomicLongFieldUpdater.newUpdater(WriterReaderPhaser.class, "startEpoch");
+    private static final AtomicLongFieldUpdater<WriterReaderPhaser> EVEN_END_EPOCH =
+            AtomicLongFieldUpdater.newUpdater(WriterReaderPhaser.class, "evenEndEpoch");
+    private static final AtomicLongFieldUpdater<WriterReaderPhaser> ODD_END_EPOCH =
+            AtomicLongFieldUpdater.newUpdater(WriterReaderPhaser.class, "oddEndEpoch");
+
+    private volatile long startEpoch = 0;
+    private volatile long evenEndEpoch = 0;
+    private volatile long oddEndEpoch = Long.MIN_VALUE;
+
+    private final ReentrantLock readerLock = new ReentrantLock();
+
+    /**
+     * Enters a writer critical section, never blocks.
+     *
+     * @return the value to pass to {@link #writerCriticalSectionExit(long)}
+     */
+    public long writerCriticalSectionEnter() {
+        return START_EPOCH.getAndIncrement(this);
+    }
+
+    /**
+     * Exits a writer critical section, never blocks.
+     *
+     * @param criticalValueAtEnter the value returned by {@link #writerCriticalSectionEnter()}
+     */
+    public void writerCriticalSectionExit(final long criticalValueAtEnter) {
+        (criticalValueAtEnter < 0 ? ODD_END_EPOCH : EVEN_END_EPOCH).getAndIncrement(this);
+    }
+
+    /**
+     * Acquires the reader lock;  only one reader can flip the phase at a time.
+     */
+    public void readerLock() {
+        readerLock.lock();
+    }
+
+    /**
+     * Releases the reader lock.
+     */
+    public void readerUnlock() {
+        readerLock.unlock();
+    }
+
+    /**
+     * Flips the phase and waits until all writers of the previous phase have left their critical section.  Must be
+     * invoked while holding the reader lock.
+     *
+     * @throws IllegalStateException if the current thread does not hold the reader lock
+     */
+    public void flipPhase() {
+        if (!readerLock.isHeldByCurrentThread()) {
+            throw new IllegalStateException("flipPhase() can only be called while holding the reader lock");
+        }
+        final boolean nextPhaseIsEven = startEpoch < 0;
+        final long initialStartValue = nextPhaseIsEven ? 0 : Long.MIN_VALUE;
+        if (nextPhaseIsEven) {
+            evenEndEpoch = initialStartValue;
+        } else {
+            oddEndEpoch = initialStartValue;
+        }
+        final long startValueAtFlip = START_EPOCH.getAndSet(this, initialStartValue);
+        while ((nextPhaseIsEven ? oddEndEpoch : evenEndEpoch) != startValueAtFlip) {
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,312 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.encode;
+
+import org.tools4j.metric.api.TextOutput;
+
+/**
+ * Base class for text outputs that formats numbers without allocating objects.  Subclasses only have to implement
+ * {@link #append(char)}.
+ * <p>
+ * By default double values are printed with the fewest significant digits that uniquely identify the value (at
+ * most 17) so that parsing the text yields the same double again, in the same notation as
+ * {@link Double#toString(double)}, for instance {@code "12.0"}, {@code "0.1"} or {@code "1.5E-7"}.  Alternatively a
+ * fixed maximum number of decimal places can be specified in which case trailing zeros are removed, but at least one
+ * decimal place is printed, for instance {@code "0.333333"};  values whose integer part exceeds the long range are
+ * then printed in scientific notation such as {@code "1.5E20"}.
+ */
+public abstract class AbstractTextOutput implements TextOutput {
+
+    /** Decimals value for printing the shortest text that parses to the same double value */
+    public static final int ROUND_TRIP = -1;
+    public static final int DEFAULT_DECIMALS = ROUND_TRIP;
+    public static final int MAX_DECIMALS = 17;
+
+    private static final long[] POWERS_OF_TEN = powersOfTen();
+    private static final double[] EXACT_POWERS_OF_TEN = exactPowersOfTen();
+    private static final double MAX_SCALED = 1e18;
+    private static final int MAX_PRECISION = 17;
+    private static final double SPLITTER = 134217729.0;//2^27 + 1
+
+    private final int decimals;
+    private double scaledHigh;
+    private double scaledLow;
+
+    protected AbstractTextOutput(final int decimals) {
+        if (decimals != ROUND_TRIP && (decimals < 0 || decimals > MAX_DECIMALS)) {
+            throw new IllegalArgumentException("Decimals must be ROUND_TRIP or in [0, " + MAX_DECIMALS + "]: " +
+                    decimals);
+        }
+        this.decimals = decimals;
+    }
+
+    private static long[] powersOfTen() {
+        final long[] powers = new long[19];
+        powers[0] = 1;
+        for (int i = 1; i < powers.length; i++) {
+            powers[i] = powers[i - 1] * 10;
+        }
+        return powers;
+    }
+
+    private static double[] exactPowersOfTen() {
+        final double[] powers = new double[23];
+        powers[0] = 1;
+        for (int i = 1; i < powers.length; i++) {
+            powers[i] = powers[i - 1] * 10;
+        }
+        return powers;
+    }
+
+    /**
+     * @return the maximum number of decimal places used to print double values, or {@link #ROUND_TRIP} if values
+     *         are printed with the shortest round trip representation
+     */
+    public int decimals() {
+        return decimals;
+    }
+
+    @Override
+    public abstract TextOutput append(char value);
+
+    @Override
+    public TextOutput append(final CharSequence value) {
+        return append(value, 0, value.length());
+    }
+
+    @Override
+    public TextOutput append(final CharSequence value, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            append(value.charAt(i));
+        }
+        return this;
+    }
+
+    @Override
+    public TextOutput append(final long value) {
+        if (value < 0) {
+            append('-');
+            if (value == Long.MIN_VALUE) {
+                return append("9223372036854775808");
+            }
+            appendDigits(-value, 1);
+        } else {
+            appendDigits(value, 1);
+        }
+        return this;
+    }
+
+    @Override
+    public TextOutput append(final double value) {
+        if (Double.isNaN(value)) {
+            return append("NaN");
+        }
+        double abs = value;
+        if (value < 0 || (value == 0 && Double.doubleToRawLongBits(value) != 0)) {
+            append('-');
+            abs = -value;
+        }
+        if (Double.isInfinite(abs)) {
+            return append("Infinity");
+        }
+        if (abs == 0) {
+            return append("0.0");
+        }
+        if (decimals == ROUND_TRIP) {
+            appendRoundTrip(abs);
+            return this;
+        }
+        if (abs < MAX_SCALED) {
+            appendFixed(abs, decimals);
+            return this;
+        }
+        int exponent = (int)Math.log10(abs);
+        double mantissa = abs / Math.pow(10, exponent);
+        if (mantissa < 1) {
+            mantissa *= 10;
+            exponent--;
+        }
+        if (Math.round(mantissa * POWERS_OF_TEN[decimals]) >= 10 * POWERS_OF_TEN[decimals]) {
+            //mantissa rounds up to 10.0, print 1.0 with the next exponent instead
+            mantissa /= 10;
+            exponent++;
+        }
+        appendFixed(mantissa, decimals);
+        append('E');
+        appendDigits(exponent, 1);
+        return this;
+    }
+
+    /**
+     * Appends the positive finite value with 15, 16 or 17 significant digits, whichever is the smallest precision
+     * that still identifies the value uniquely, with trailing zeros removed;  this yields the shortest representation
+     * for all normal values.  Decimal digits are derived from the
+     * value scaled by a power of ten in double-double arithmetic which is exact for all but extreme exponents.
+     */
+    private void appendRoundTrip(final double abs) {
+        final double relativeHalfUlp = 0.5 * Math.min(Math.ulp(abs), Math.ulp(Math.nextDown(abs))) / abs;
+        int exponent = (int)Math.floor(Math.log10(abs));
+        int precision = 15;
+        long digits;
+        while (true) {
+            scale(abs, precision - 1 - exponent);
+            final double floor = Math.floor(scaledHigh);
+            final double fraction = (scaledHigh - floor) + scaledLow;
+            digits = (long)floor + Math.round(fraction);
+            if (digits >= POWERS_OF_TEN[precision]) {
+                exponent++;
+                continue;
+            }
+            if (digits < POWERS_OF_TEN[precision - 1]) {
+                exponent--;
+                continue;
+            }
+            if (precision == MAX_PRECISION) {
+                break;
+            }
+            //digits identify the value if they are closer to it than half an ulp, with a margin for rounding errors
+            final double error = Math.abs((digits - (long)floor) - fraction);
+            if (error < relativeHalfUlp * scaledHigh * (1 - 1e-6)) {
+                break;
+            }
+            precision++;
+        }
+        while (precision > 1 && digits % 10 == 0) {
+            digits /= 10;
+            precision--;
+        }
+        if (exponent >= -3 && exponent < 7) {
+            if (exponent < 0) {
+                append("0.");
+                for (int i = -1; i > exponent; i--) {
+                    append('0');
+                }
+                appendDigits(digits, precision);
+            } else if (precision <= exponent + 1) {
+                appendDigits(digits * POWERS_OF_TEN[exponent + 1 - precision], 1);
+                append(".0");
+            } else {
+                final long fractionScale = POWERS_OF_TEN[precision - exponent - 1];
+                appendDigits(digits / fractionScale, 1);
+                append('.');
+                appendDigits(digits % fractionScale, precision - exponent - 1);
+            }
+        } else {
+            final long fractionScale = POWERS_OF_TEN[precision - 1];
+            appendDigits(digits / fractionScale, 1);
+            append('.');
+            if (precision == 1) {
+                append('0');
+            } else {
+                appendDigits(digits % fractionScale, precision - 1);
+            }
+            append('E');
+            append((long)exponent);
+        }
+    }
+
+    /**
+     * Computes value * 10^power as unevaluated sum of {@link #scaledHigh} and {@link #scaledLow}.
+     */
+    private void scale(final double value, final int power) {
+        //pre-scale huge values by an exact power of two so that products cannot overflow
+        final boolean huge = value > 0x1p960;
+        double high = huge ? value * 0x1p-64 : value;
+        double low = 0;
+        if (power >= 0) {
+            for (int remaining = power; remaining > 0; ) {
+                final int step = Math.min(remaining, EXACT_POWERS_OF_TEN.length - 1);
+                final double factor = EXACT_POWERS_OF_TEN[step];
+                final double product = high * factor;
+                low = productError(high, factor, product) + low * factor;
+                high = product;
+                remaining -= step;
+            }
+        } else {
+            for (int remaining = -power; remaining > 0; ) {
+                final int step = Math.min(remaining, EXACT_POWERS_OF_TEN.length - 1);
+                final double divisor = EXACT_POWERS_OF_TEN[step];
+                final double quotient = high / divisor;
+                final double product = quotient * divisor;
+                low = ((high - product) - productError(quotient, divisor, product) + low) / divisor;
+                high = quotient;
+                remaining -= step;
+            }
+        }
+        if (huge) {
+            high *= 0x1p64;
+            low *= 0x1p64;
+        }
+        scaledHigh = high + low;
+        scaledLow = low - (scaledHigh - high);
+    }
+
+    /**
+     * Returns the rounding error of a product using Dekker's algorithm such that a * b == product + error exactly.
+     */
+    private static double productError(final double a, final double b, final double product) {
+        final double aSplit = a * SPLITTER;
+        final double aHigh = aSplit - (aSplit - a);
+        final double aLow = a - aHigh;
+        final double bSplit = b * SPLITTER;
+        final double bHigh = bSplit - (bSplit - b);
+        final double bLow = b - bHigh;
+        return ((aHigh * bHigh - product) + aHigh * bLow + aLow * bHigh) + aLow * bLow;
+    }
+
+    private void appendFixed(final double value, final int maxDecimals) {
+        long integer = (long)value;
+        int digits = maxDecimals;
+        final long scale = POWERS_OF_TEN[digits];
+        long fraction = Math.round((value - integer) * scale);
+        if (fraction >= scale) {
+            integer++;
+            fraction -= scale;
+        }
+        appendDigits(integer, 1);
+        append('.');
+        if (digits == 0) {
+            append('0');
+            return;
+        }
+        while (digits > 1 && fraction % 10 == 0) {
+            fraction /= 10;
+            digits--;
+        }
+        appendDigits(fraction, digits);
+    }
+
+    /**
+     * Appends the non-negative value with at least the given number of digits, padded with leading zeros.
+     */
+    private void appendDigits(final long value, final int minDigits) {
+        int digits = 1;
+        while (digits < POWERS_OF_TEN.length && POWERS_OF_TEN[digits] <= value) {
+            digits++;
+        }
+        for (int i = Math.max(digits, minDigits) - 1; i >= 0; i--) {
+            append((char)('0' + (i < POWERS_OF_TEN.length ? (value / POWERS_OF_TEN[i]) % 10 : 0)));
+        }
+    }
+}
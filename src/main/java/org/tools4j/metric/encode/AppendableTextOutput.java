@@ -0,0 +1,77 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.encode;
+
+import org.tools4j.metric.api.TextOutput;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Text output appending to an {@link Appendable}.
+ *
+ * @throws IllegalArgumentException when appending to the output if the appendable throws an {@link IOException}
+ */
+public class AppendableTextOutput extends AbstractTextOutput {
+
+    private Appendable output;
+
+    public AppendableTextOutput(final Appendable output) {
+        this(output, DEFAULT_DECIMALS);
+    }
+
+    public AppendableTextOutput(final Appendable output, final int decimals) {
+        super(decimals);
+        this.output = Objects.requireNonNull(output);
+    }
+
+    public AppendableTextOutput wrap(final Appendable output) {
+        this.output = Objects.requireNonNull(output);
+        return this;
+    }
+
+    public Appendable output() {
+        return output;
+    }
+
+    @Override
+    public TextOutput append(final char value) {
+        try {
+            output.append(value);
+        } catch (final IOException e) {
+            throw new IllegalArgumentException("Appendable " + output + " threw an exception, e=" + e, e);
+        }
+        return this;
+    }
+
+    @Override
+    public TextOutput append(final CharSequence value, final int start, final int end) {
+        try {
+            output.append(value, start, end);
+        } catch (final IOException e) {
+            throw new IllegalArgumentException("Appendable " + output + " threw an exception, e=" + e, e);
+        }
+        return this;
+    }
+}
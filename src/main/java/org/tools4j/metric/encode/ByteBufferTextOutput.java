@@ -0,0 +1,86 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.encode;
+
+import org.tools4j.metric.api.TextOutput;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Text output writing ASCII encoded characters directly into a {@link ByteBuffer} starting at the buffer's current
+ * position;  characters outside of the ASCII range are written as {@code '?'}.  The output is intended to be reused,
+ * for instance by calling {@link #clear()} after the buffer content has been consumed.
+ *
+ * @throws java.nio.BufferOverflowException when appending to the output if the buffer has insufficient space
+ */
+public class ByteBufferTextOutput extends AbstractTextOutput {
+
+    private ByteBuffer buffer;
+
+    public ByteBufferTextOutput(final int capacity) {
+        this(ByteBuffer.allocateDirect(capacity));
+    }
+
+    public ByteBufferTextOutput(final ByteBuffer buffer) {
+        this(buffer, DEFAULT_DECIMALS);
+    }
+
+    public ByteBufferTextOutput(final ByteBuffer buffer, final int decimals) {
+        super(decimals);
+        this.buffer = Objects.requireNonNull(buffer);
+    }
+
+    public ByteBufferTextOutput wrap(final ByteBuffer buffer) {
+        this.buffer = Objects.requireNonNull(buffer);
+        return this;
+    }
+
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * @return the number of bytes written to the buffer, that is, the buffer's current position
+     */
+    public int length() {
+        return buffer.position();
+    }
+
+    /**
+     * Clears the underlying buffer so that subsequent appends start at position zero.
+     *
+     * @return this output
+     */
+    public ByteBufferTextOutput clear() {
+        buffer.clear();
+        return this;
+    }
+
+    @Override
+    public TextOutput append(final char value) {
+        buffer.put(value < 128 ? (byte)value : (byte)'?');
+        return this;
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.encode;
+
+import org.tools4j.metric.api.TextOutput;
+
+import java.util.Objects;
+
+/**
+ * Text output appending to a {@link StringBuilder}.  The output can be reused for different string builders through
+ * {@link #wrap(StringBuilder)}.
+ */
+public class StringBuilderTextOutput extends AbstractTextOutput {
+
+    private StringBuilder output;
+
+    public StringBuilderTextOutput() {
+        this(new StringBuilder());
+    }
+
+    public StringBuilderTextOutput(final StringBuilder output) {
+        this(output, DEFAULT_DECIMALS);
+    }
+
+    public StringBuilderTextOutput(final StringBuilder output, final int decimals) {
+        super(decimals);
+        this.output = Objects.requireNonNull(output);
+    }
+
+    public StringBuilderTextOutput wrap(final StringBuilder output) {
+        this.output = Objects.requireNonNull(output);
+        return this;
+    }
+
+    public StringBuilder output() {
+        return output;
+    }
+
+    @Override
+    public TextOutput append(final char value) {
+        output.append(value);
+        return this;
+    }
+
+    @Override
+    public TextOutput append(final CharSequence value, final int start, final int end) {
+        output.append(value, start, end);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return output.toString();
+    }
+}
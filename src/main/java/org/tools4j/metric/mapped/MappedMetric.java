@@ -0,0 +1,182 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.mapped;
+
+import org.tools4j.metric.api.Metric;
+import org.tools4j.metric.api.MetricRecorder;
+import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.TextOutput;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import static org.tools4j.metric.mapped.MappedMetricsFile.SEQUENCE_OFFSET;
+import static org.tools4j.metric.mapped.MappedMetricsFile.VALUES_OFFSET;
+import static org.tools4j.metric.mapped.UnsafeAccess.UNSAFE;
+
+/**
+ * Metric whose state is published to an entry of a {@link MappedMetricsFile}.  The metric computes its values in
+ * heap fields like the corresponding basic metric and then publishes them to the mapped entry guarded by a
+ * sequence lock.  A mapped metric must only be recorded by a single thread.
+ */
+public class MappedMetric implements Metric, MetricRecorder {
+
+    private final ByteBuffer buffer;//strong reference to keep the buffer mapped
+    private final long address;
+    private final MappedMetricType type;
+    private final MetricRecorder recorder = this::record;
+    private final Printer<? super MappedMetric> printer;
+    private long sequence;
+    private long count;
+    private double value0;
+    private double value1;
+
+    MappedMetric(final ByteBuffer buffer, final long address, final MappedMetricType type,
+                 final Printer<? super MappedMetric> printer) {
+        this.buffer = Objects.requireNonNull(buffer);
+        this.address = address;
+        this.type = Objects.requireNonNull(type);
+        this.printer = Objects.requireNonNull(printer);
+        reset();
+    }
+
+    static Printer<MappedMetric> defaultPrinter(final String name, final MappedMetricType type) {
+        switch (type) {
+            case AVG:
+                return (metric, output) -> output.append(name).append('=').append(metric.value(1));
+            case MEAN_VARIANCE:
+                return (metric, output) -> output
+                        .append(name).append(".mean=").append(metric.value(1)).append(' ')
+                        .append(name).append(".std=").append(Math.sqrt(metric.varianceUnbiased()));
+            default:
+                return (metric, output) -> output.append(name).append('=').append(metric.value(0));
+        }
+    }
+
+    public MappedMetricType type() {
+        return type;
+    }
+
+    @Override
+    public MetricRecorder recorder() {
+        return recorder;
+    }
+
+    @Override
+    public void record(final double value) {
+        switch (type) {
+            case SUM:
+                value0 += value;
+                break;
+            case MIN:
+                value0 = Double.isNaN(value0) ? value : Double.min(value0, value);
+                break;
+            case MAX:
+                value0 = Double.isNaN(value0) ? value : Double.max(value0, value);
+                break;
+            case AVG:
+                count++;
+                value1 = count == 1 ? value : value1 + (value - value1) / count;
+                break;
+            case MEAN_VARIANCE:
+                count++;
+                if (count > 1) {
+                    final double delta = value - value1;
+                    value1 += delta / count;
+                    value0 += delta * (value - value1);
+                } else {
+                    value1 = value;
+                    value0 = 0;
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unsupported type: " + type);
+        }
+        publish();
+    }
+
+    @Override
+    public void reset() {
+        count = 0;
+        value0 = type == MappedMetricType.MEAN_VARIANCE ? Double.NaN : type.initialValue();
+        value1 = type.initialValue();
+        publish();
+    }
+
+    private void publish() {
+        final long valuesAddress = address + VALUES_OFFSET;
+        UNSAFE.putOrderedLong(null, address + SEQUENCE_OFFSET, ++sequence);
+        UNSAFE.storeFence();
+        switch (type) {
+            case AVG:
+                UNSAFE.putDouble(valuesAddress, count);
+                UNSAFE.putDouble(valuesAddress + 8, value1);
+                break;
+            case MEAN_VARIANCE:
+                UNSAFE.putDouble(valuesAddress, count);
+                UNSAFE.putDouble(valuesAddress + 8, value1);
+                UNSAFE.putDouble(valuesAddress + 16, value0);
+                break;
+            default:
+                UNSAFE.putDouble(valuesAddress, value0);
+                break;
+        }
+        UNSAFE.putOrderedLong(null, address + SEQUENCE_OFFSET, ++sequence);
+    }
+
+    /**
+     * Returns the value at the given index as published to the mapped file, see
+     * {@link MappedMetricType#valueName(int)}.
+     *
+     * @param index the value index
+     * @return the value at the given index
+     */
+    public double value(final int index) {
+        if (index < 0 || index >= type.valueCount()) {
+            throw new IndexOutOfBoundsException("Index " + index + " invalid for type " + type);
+        }
+        return UNSAFE.getDouble(address + VALUES_OFFSET + 8L * index);
+    }
+
+    /**
+     * @return the number of values in the sample for {@link MappedMetricType#AVG AVG} and
+     *         {@link MappedMetricType#MEAN_VARIANCE MEAN_VARIANCE} metrics, and zero otherwise
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return the bias corrected variance for {@link MappedMetricType#MEAN_VARIANCE MEAN_VARIANCE} metrics, and NaN
+     *         otherwise
+     */
+    public double varianceUnbiased() {
+        return type == MappedMetricType.MEAN_VARIANCE && count > 1 ? value0 / (count - 1) : Double.NaN;
+    }
+
+    @Override
+    public void print(final TextOutput output) {
+        printer.print(this, output);
+    }
+}
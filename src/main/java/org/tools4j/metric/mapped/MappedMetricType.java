@@ -0,0 +1,79 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.mapped;
+
+/**
+ * Types of metrics supported by {@link MappedMetric}.  Each type defines the values it stores in the mapped file
+ * and the initial values after reset.
+ */
+public enum MappedMetricType {
+    /** Sum of sampled values, see {@link org.tools4j.metric.basic.SumMetric} */
+    SUM(0, "sum"),
+    /** Minimum of sampled values, see {@link org.tools4j.metric.basic.MinMetric} */
+    MIN(Double.NaN, "min"),
+    /** Maximum of sampled values, see {@link org.tools4j.metric.basic.MaxMetric} */
+    MAX(Double.NaN, "max"),
+    /** Count and average of sampled values, see {@link org.tools4j.metric.basic.AvgMetric} */
+    AVG(Double.NaN, "count", "avg"),
+    /**
+     * Count, mean and sum of squared differences from the mean, see
+     * {@link org.tools4j.metric.basic.MeanVarianceMetric}
+     */
+    MEAN_VARIANCE(Double.NaN, "count", "mean", "s");
+
+    private static final MappedMetricType[] VALUES = values();
+
+    private final double initialValue;
+    private final String[] valueNames;
+
+    MappedMetricType(final double initialValue, final String... valueNames) {
+        this.initialValue = initialValue;
+        this.valueNames = valueNames;
+    }
+
+    /**
+     * @return the initial value of all non-count values after reset
+     */
+    public double initialValue() {
+        return initialValue;
+    }
+
+    /**
+     * @return the number of double values stored for this metric type
+     */
+    public int valueCount() {
+        return valueNames.length;
+    }
+
+    public String valueName(final int index) {
+        return valueNames[index];
+    }
+
+    static MappedMetricType byOrdinal(final int ordinal) {
+        if (ordinal < 0 || ordinal >= VALUES.length) {
+            throw new IllegalStateException("Invalid metric type ordinal: " + ordinal);
+        }
+        return VALUES[ordinal];
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.mapped;
+
+import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.Repository;
+import org.tools4j.metric.repository.ArrayRepository;
+import org.tools4j.metric.repository.AtomicArrayRepository;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+
+import static org.tools4j.metric.mapped.UnsafeAccess.UNSAFE;
+
+/**
+ * Memory mapped file with the live state of metrics, readable by another process through
+ * {@link MappedMetricsReader}.  The file starts with a header followed by a fixed number of entries:
+ * <pre>
+ * header (64 bytes):  magic (int), version (int), capacity (int), padding (int), count (long), padding
+ * entry (128 bytes):  sequence (long), type ordinal (int), name length (int), values (6 x double),
+ *                     name (64 ASCII bytes)
+ * </pre>
+ * The count is published with an ordered write after an entry has been fully initialised.  Values are published by
+ * the single writer of a metric using a sequence lock:  the sequence is odd while the values are written and even
+ * otherwise, so that readers can retry if they observe a concurrent update.
+ * <p>
+ * Metrics are created through {@link #newMetric(String, MappedMetricType)} or, as a replacement for
+ * {@link ArrayRepository#forEnum(Class, java.util.function.Function)}, through
+ * {@link #forEnum(Class, MappedMetricType)}.
+ */
+public class MappedMetricsFile implements Closeable {
+
+    static final int MAGIC = 0x6d657472;//"metr"
+    static final int VERSION = 1;
+
+    static final int HEADER_LENGTH = 64;
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int CAPACITY_OFFSET = 8;
+    static final int COUNT_OFFSET = 16;
+
+    static final int ENTRY_LENGTH = 128;
+    static final int SEQUENCE_OFFSET = 0;
+    static final int TYPE_OFFSET = 8;
+    static final int NAME_LENGTH_OFFSET = 12;
+    static final int VALUES_OFFSET = 16;
+    static final int MAX_VALUES = 6;
+    static final int NAME_OFFSET = 64;
+    public static final int MAX_NAME_LENGTH = ENTRY_LENGTH - NAME_OFFSET;
+
+    private final File file;
+    private final int capacity;
+    private final RandomAccessFile randomAccessFile;
+    private final MappedByteBuffer buffer;
+    private final long address;
+    private int count;
+
+    private MappedMetricsFile(final File file, final int capacity) throws IOException {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.file = Objects.requireNonNull(file);
+        this.capacity = capacity;
+        this.randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            final long length = fileLength(capacity);
+            randomAccessFile.setLength(0);
+            randomAccessFile.setLength(length);
+            this.buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+        } catch (final IOException | RuntimeException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+        this.address = UnsafeAccess.address(buffer);
+        UNSAFE.putInt(address + MAGIC_OFFSET, MAGIC);
+        UNSAFE.putInt(address + VERSION_OFFSET, VERSION);
+        UNSAFE.putInt(address + CAPACITY_OFFSET, capacity);
+        UNSAFE.putOrderedLong(null, address + COUNT_OFFSET, 0);
+    }
+
+    /**
+     * Creates or truncates the given file and maps it for the given number of metrics.
+     *
+     * @param file      the file to create
+     * @param capacity  the maximum number of metrics that can be created
+     * @return the mapped metrics file
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public static MappedMetricsFile create(final File file, final int capacity) throws IOException {
+        return new MappedMetricsFile(file, capacity);
+    }
+
+    static long fileLength(final int capacity) {
+        return HEADER_LENGTH + (long)capacity * ENTRY_LENGTH;
+    }
+
+    public File file() {
+        return file;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    public MappedMetric newMetric(final String name, final MappedMetricType type) {
+        return newMetric(name, type, MappedMetric.defaultPrinter(name, type));
+    }
+
+    /**
+     * Creates a new metric with its own entry in the mapped file.
+     *
+     * @param name      the metric name written to the file, at most {@link #MAX_NAME_LENGTH} ASCII characters
+     * @param type      the metric type
+     * @param printer   the printer for the metric
+     * @return the new metric
+     * @throws IllegalStateException if the file capacity is exhausted
+     */
+    public synchronized MappedMetric newMetric(final String name, final MappedMetricType type,
+                                               final Printer<? super MappedMetric> printer) {
+        Objects.requireNonNull(type);
+        if (name.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("Name exceeds max length " + MAX_NAME_LENGTH + ": " + name);
+        }
+        if (count >= capacity) {
+            throw new IllegalStateException("Capacity " + capacity + " exhausted in " + file);
+        }
+        final long entryAddress = address + HEADER_LENGTH + (long)count * ENTRY_LENGTH;
+        UNSAFE.putInt(entryAddress + TYPE_OFFSET, type.ordinal());
+        UNSAFE.putInt(entryAddress + NAME_LENGTH_OFFSET, name.length());
+        for (int i = 0; i < name.length(); i++) {
+            final char ch = name.charAt(i);
+            UNSAFE.putByte(entryAddress + NAME_OFFSET + i, ch < 128 ? (byte)ch : (byte)'?');
+        }
+        final MappedMetric metric = new MappedMetric(buffer, entryAddress, type, printer);
+        count++;
+        UNSAFE.putOrderedLong(null, address + COUNT_OFFSET, count);
+        return metric;
+    }
+
+    /**
+     * Returns a repository for enum keys with a mapped metric per key named after the enum constant;  the metric
+     * entries are created in the file when first accessed through the repository.
+     *
+     * @param enumClass the enum key class
+     * @param type      the type of all metrics in the repository
+     * @param <E>       the enum key type
+     * @return a repository backed by an array with mapped metrics as values
+     */
+    public <E extends Enum<E>> Repository<E, MappedMetric> forEnum(final Class<E> enumClass,
+                                                                   final MappedMetricType type) {
+        return ArrayRepository.forEnum(enumClass, key -> newMetric(key.name(), type));
+    }
+
+    /**
+     * Returns a thread safe repository for enum keys;  note that a metric entry in the file may remain unused if two
+     * threads concurrently create the metric for the same key.
+     *
+     * @param enumClass the enum key class
+     * @param type      the type of all metrics in the repository
+     * @param <E>       the enum key type
+     * @return a repository backed by an atomic array with mapped metrics as values
+     */
+    public <E extends Enum<E>> Repository<E, MappedMetric> atomicForEnum(final Class<E> enumClass,
+                                                                         final MappedMetricType type) {
+        return AtomicArrayRepository.forEnum(enumClass, key -> newMetric(key.name(), type));
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        randomAccessFile.close();
+    }
+}
@@ -0,0 +1,181 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.mapped;
+
+import org.tools4j.metric.api.TextOutput;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+
+import static org.tools4j.metric.mapped.MappedMetricsFile.CAPACITY_OFFSET;
+import static org.tools4j.metric.mapped.MappedMetricsFile.COUNT_OFFSET;
+import static org.tools4j.metric.mapped.MappedMetricsFile.ENTRY_LENGTH;
+import static org.tools4j.metric.mapped.MappedMetricsFile.HEADER_LENGTH;
+import static org.tools4j.metric.mapped.MappedMetricsFile.MAGIC;
+import static org.tools4j.metric.mapped.MappedMetricsFile.MAGIC_OFFSET;
+import static org.tools4j.metric.mapped.MappedMetricsFile.MAX_NAME_LENGTH;
+import static org.tools4j.metric.mapped.MappedMetricsFile.NAME_LENGTH_OFFSET;
+import static org.tools4j.metric.mapped.MappedMetricsFile.NAME_OFFSET;
+import static org.tools4j.metric.mapped.MappedMetricsFile.SEQUENCE_OFFSET;
+import static org.tools4j.metric.mapped.MappedMetricsFile.TYPE_OFFSET;
+import static org.tools4j.metric.mapped.MappedMetricsFile.VALUES_OFFSET;
+import static org.tools4j.metric.mapped.MappedMetricsFile.VERSION;
+import static org.tools4j.metric.mapped.MappedMetricsFile.VERSION_OFFSET;
+import static org.tools4j.metric.mapped.UnsafeAccess.UNSAFE;
+
+/**
+ * Reads metrics written through a {@link MappedMetricsFile} while the writing process is live, typically from a
+ * separate JVM.  Reading never blocks or slows down the writer;  consistent values are read by retrying while a
+ * metric is concurrently updated.
+ * <p>
+ * Header and entry fields read from the file are validated before they are used to address memory, hence a corrupt
+ * file leads to an exception and never to reads outside of the mapped region.
+ */
+public class MappedMetricsReader implements Closeable {
+
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final MappedByteBuffer buffer;
+    private final long address;
+    private final int capacity;
+
+    private MappedMetricsReader(final File file) throws IOException {
+        this.file = Objects.requireNonNull(file);
+        this.randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            if (randomAccessFile.length() < HEADER_LENGTH) {
+                throw new IOException("File is too short for a metrics file: " + file);
+            }
+            this.buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0,
+                    randomAccessFile.length());
+            this.address = UnsafeAccess.address(buffer);
+            if (UNSAFE.getInt(address + MAGIC_OFFSET) != MAGIC) {
+                throw new IOException("Not a metrics file: " + file);
+            }
+            if (UNSAFE.getInt(address + VERSION_OFFSET) != VERSION) {
+                throw new IOException("Unsupported version " + UNSAFE.getInt(address + VERSION_OFFSET) + ": " + file);
+            }
+            this.capacity = UNSAFE.getInt(address + CAPACITY_OFFSET);
+            if (capacity < 0) {
+                throw new IOException("Invalid capacity " + capacity + ": " + file);
+            }
+            if (buffer.capacity() < MappedMetricsFile.fileLength(capacity)) {
+                throw new IOException("File is too short for capacity " + capacity + ": " + file);
+            }
+        } catch (final IOException | RuntimeException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+    }
+
+    public static MappedMetricsReader open(final File file) throws IOException {
+        return new MappedMetricsReader(file);
+    }
+
+    public File file() {
+        return file;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of metrics currently present in the file, at most capacity
+     */
+    public int count() {
+        final long count = UNSAFE.getLongVolatile(null, address + COUNT_OFFSET);
+        return (int)Math.max(0, Math.min(capacity, count));
+    }
+
+    private long entryAddress(final int index) {
+        if (index < 0 || index >= count()) {
+            throw new IndexOutOfBoundsException("Index " + index + " is invalid, count=" + count());
+        }
+        return address + HEADER_LENGTH + (long)index * ENTRY_LENGTH;
+    }
+
+    private static int nameLength(final long entryAddress) {
+        final int length = UNSAFE.getInt(entryAddress + NAME_LENGTH_OFFSET);
+        if (length < 0 || length > MAX_NAME_LENGTH) {
+            throw new IllegalStateException("Invalid name length: " + length);
+        }
+        return length;
+    }
+
+    public MappedMetricType type(final int index) {
+        return MappedMetricType.byOrdinal(UNSAFE.getInt(entryAddress(index) + TYPE_OFFSET));
+    }
+
+    public TextOutput name(final int index, final TextOutput output) {
+        final long entryAddress = entryAddress(index);
+        final int length = nameLength(entryAddress);
+        for (int i = 0; i < length; i++) {
+            output.append((char)UNSAFE.getByte(entryAddress + NAME_OFFSET + i));
+        }
+        return output;
+    }
+
+    public String name(final int index) {
+        final long entryAddress = entryAddress(index);
+        final int length = nameLength(entryAddress);
+        final char[] name = new char[length];
+        for (int i = 0; i < length; i++) {
+            name[i] = (char)UNSAFE.getByte(entryAddress + NAME_OFFSET + i);
+        }
+        return new String(name);
+    }
+
+    /**
+     * Reads a consistent snapshot of the values of the metric at the given index.
+     *
+     * @param index     the metric index
+     * @param values    the array to fill with values, must have at least
+     *                  {@link MappedMetricType#valueCount() valueCount()} elements for the metric's type
+     * @return the number of values read
+     */
+    public int read(final int index, final double[] values) {
+        final long entryAddress = entryAddress(index);
+        final int valueCount = MappedMetricType.byOrdinal(UNSAFE.getInt(entryAddress + TYPE_OFFSET)).valueCount();
+        long sequence;
+        do {
+            sequence = UNSAFE.getLongVolatile(null, entryAddress + SEQUENCE_OFFSET);
+            for (int i = 0; i < valueCount; i++) {
+                values[i] = UNSAFE.getDouble(entryAddress + VALUES_OFFSET + 8L * i);
+            }
+            UNSAFE.loadFence();
+        } while ((sequence & 1) != 0 || sequence != UNSAFE.getLongVolatile(null, entryAddress + SEQUENCE_OFFSET));
+        return valueCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        randomAccessFile.close();
+    }
+}
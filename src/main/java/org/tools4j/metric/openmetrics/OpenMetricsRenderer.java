@@ -0,0 +1,405 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.openmetrics;
+
+import org.tools4j.metric.api.DiscriminatingRepository;
+import org.tools4j.metric.api.DiscriminatingRepository.DiscriminatedConsumer;
+import org.tools4j.metric.api.Repository;
+import org.tools4j.metric.basic.HistogramMetric;
+import org.tools4j.metric.encode.AbstractTextOutput;
+import org.tools4j.metric.encode.ByteBufferTextOutput;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Renders metrics of repositories in the OpenMetrics text format, for instance to be scraped by Prometheus.  Metric
+ * families are registered with a repository, the label name for repository keys and optionally a label name for
+ * discriminators;  every metric in the repository is rendered as one sample, or as one bucket series for histograms.
+ * For instance:
+ * <pre>
+ * OpenMetricsRenderer renderer = new OpenMetricsRenderer()
+ *         .beforeRender(Repositories.snapshotter(repository, snapshot))
+ *         .counter("orders", "Orders received", snapshot, "venue", SumMetric::sum)
+ *         .histogram("latency_seconds", "Order latency", latencies, "venue", 0.001, 0.01, 0.1, 1);
+ * ByteBuffer bytes = renderer.render();
+ * </pre>
+ * Rendering iterates the repositories via {@link Repository#forEach(BiConsumer)} and writes into a reusable direct
+ * buffer which grows if the output does not fit;  apart from growing the buffer, rendering does not allocate for
+ * enum or string keys.  Note that the renderer reads metrics while they may be recorded by other threads;  render
+ * snapshots such as interval metrics or snapshot repositories for consistent values.
+ */
+public class OpenMetricsRenderer {
+
+    public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+    public static final int DEFAULT_INITIAL_CAPACITY = 64 * 1024;
+
+    private final List<Runnable> actions = new ArrayList<>();
+    private final List<Family<?,?,?>> families = new ArrayList<>();
+    private final int decimals;
+    private ByteBufferTextOutput output;
+
+    public OpenMetricsRenderer() {
+        this(DEFAULT_INITIAL_CAPACITY, AbstractTextOutput.DEFAULT_DECIMALS);
+    }
+
+    /**
+     * Constructor with initial buffer capacity and the number of decimal places for sample values.
+     *
+     * @param initialCapacity   the initial capacity of the render buffer in bytes
+     * @param decimals          the maximum number of decimal places of rendered values, or
+     *                          {@link AbstractTextOutput#ROUND_TRIP} as by default to render the shortest decimal
+     *                          representation that parses back to the same value
+     */
+    public OpenMetricsRenderer(final int initialCapacity, final int decimals) {
+        this.decimals = decimals;
+        this.output = new ByteBufferTextOutput(ByteBuffer.allocateDirect(initialCapacity), decimals);
+    }
+
+    /**
+     * Registers an action that is run before every rendering, for instance to snapshot repositories.
+     *
+     * @param action the action to run
+     * @return this renderer
+     */
+    public synchronized OpenMetricsRenderer beforeRender(final Runnable action) {
+        actions.add(Objects.requireNonNull(action));
+        return this;
+    }
+
+    public <K,V> OpenMetricsRenderer gauge(final String name, final String help, final Repository<K,V> repository,
+                                           final String keyLabel, final ToDoubleFunction<? super V> value) {
+        return add(new ValueFamily<K,Void,V>(name, help, "gauge", "", repository, null, keyLabel, null, value));
+    }
+
+    public <K,D,V> OpenMetricsRenderer gauge(final String name, final String help,
+                                             final DiscriminatingRepository<K,D,V> repository,
+                                             final String keyLabel, final String discriminatorLabel,
+                                             final ToDoubleFunction<? super V> value) {
+        return add(new ValueFamily<>(name, help, "gauge", "", repository, repository, keyLabel,
+                Objects.requireNonNull(discriminatorLabel), value));
+    }
+
+    /**
+     * Registers a counter family;  samples are rendered with the name suffixed by {@code _total}.
+     *
+     * @param name          the family name without {@code _total} suffix
+     * @param help          the help text
+     * @param repository    the repository with the metrics
+     * @param keyLabel      the label name for the repository keys
+     * @param value         the function returning the counter value of a metric
+     * @param <K>           the key type
+     * @param <V>           the metric type
+     * @return this renderer
+     */
+    public <K,V> OpenMetricsRenderer counter(final String name, final String help, final Repository<K,V> repository,
+                                             final String keyLabel, final ToDoubleFunction<? super V> value) {
+        return add(new ValueFamily<K,Void,V>(name, help, "counter", "_total", repository, null, keyLabel, null,
+                value));
+    }
+
+    public <K,D,V> OpenMetricsRenderer counter(final String name, final String help,
+                                               final DiscriminatingRepository<K,D,V> repository,
+                                               final String keyLabel, final String discriminatorLabel,
+                                               final ToDoubleFunction<? super V> value) {
+        return add(new ValueFamily<>(name, help, "counter", "_total", repository, repository, keyLabel,
+                Objects.requireNonNull(discriminatorLabel), value));
+    }
+
+    /**
+     * Registers a histogram family rendered as bucket series with the given upper bounds, followed by a
+     * {@code +Inf} bucket, count and sum.  Bucket counts are exact for bounds on a histogram bucket edge, see
+     * {@link HistogramMetric#cumulativeCounts(double[], long[])}.
+     *
+     * @param name          the family name
+     * @param help          the help text
+     * @param repository    the repository with the histograms
+     * @param keyLabel      the label name for the repository keys
+     * @param bounds        the bucket upper bounds in ascending order
+     * @param <K>           the key type
+     * @param <V>           the histogram type
+     * @return this renderer
+     */
+    public <K,V extends HistogramMetric> OpenMetricsRenderer histogram(
+            final String name, final String help, final Repository<K,V> repository, final String keyLabel,
+            final double... bounds) {
+        return add(new HistogramFamily<K,Void,V>(name, help, repository, null, keyLabel, null, bounds));
+    }
+
+    public <K,D,V extends HistogramMetric> OpenMetricsRenderer histogram(
+            final String name, final String help, final DiscriminatingRepository<K,D,V> repository,
+            final String keyLabel, final String discriminatorLabel, final double... bounds) {
+        return add(new HistogramFamily<>(name, help, repository, repository, keyLabel,
+                Objects.requireNonNull(discriminatorLabel), bounds));
+    }
+
+    private synchronized OpenMetricsRenderer add(final Family<?,?,?> family) {
+        families.add(family);
+        return this;
+    }
+
+    /**
+     * Runs the registered actions and renders all families followed by {@code # EOF}.  The returned buffer is
+     * reused and only valid until the next invocation.
+     *
+     * @return the buffer with the rendered bytes between position and limit
+     */
+    public synchronized ByteBuffer render() {
+        for (int i = 0; i < actions.size(); i++) {
+            actions.get(i).run();
+        }
+        while (true) {
+            output.clear();
+            try {
+                for (int i = 0; i < families.size(); i++) {
+                    families.get(i).render();
+                }
+                output.append("# EOF\n");
+                final ByteBuffer buffer = output.buffer();
+                buffer.flip();
+                return buffer;
+            } catch (final BufferOverflowException e) {
+                output = new ByteBufferTextOutput(ByteBuffer.allocateDirect(2 * output.buffer().capacity()),
+                        decimals);
+            }
+        }
+    }
+
+    private static void validateName(final String name) {
+        if (name.isEmpty() || !isNameStart(name.charAt(0))) {
+            throw new IllegalArgumentException("Invalid metric or label name: '" + name + "'");
+        }
+        for (int i = 1; i < name.length(); i++) {
+            final char ch = name.charAt(i);
+            if (!isNameStart(ch) && !(ch >= '0' && ch <= '9')) {
+                throw new IllegalArgumentException("Invalid metric or label name: '" + name + "'");
+            }
+        }
+    }
+
+    private static boolean isNameStart(final char ch) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || ch == '_' || ch == ':';
+    }
+
+    private abstract class Family<K,D,V> implements BiConsumer<K,V>, DiscriminatedConsumer<K,D,V> {
+        final String name;
+        final String help;
+        final String type;
+        final Repository<K,V> repository;
+        final DiscriminatingRepository<K,D,V> discriminating;
+        final String keyLabel;
+        final String discriminatorLabel;
+
+        Family(final String name, final String help, final String type, final Repository<K,V> repository,
+               final DiscriminatingRepository<K,D,V> discriminating, final String keyLabel,
+               final String discriminatorLabel) {
+            validateName(name);
+            validateName(keyLabel);
+            if (discriminatorLabel != null) {
+                validateName(discriminatorLabel);
+            }
+            this.name = name;
+            this.help = Objects.requireNonNull(help);
+            this.type = type;
+            this.repository = Objects.requireNonNull(repository);
+            this.discriminating = discriminating;
+            this.keyLabel = keyLabel;
+            this.discriminatorLabel = discriminatorLabel;
+        }
+
+        void render() {
+            output.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+            if (!help.isEmpty()) {
+                output.append("# HELP ").append(name).append(' ');
+                appendEscaped(help, false);
+                output.append('\n');
+            }
+            repository.forEach(this);
+            if (discriminating != null) {
+                discriminating.forEachDiscriminated(this);
+            }
+        }
+
+        @Override
+        public void accept(final K key, final V value) {
+            sample(key, null, value);
+        }
+
+        @Override
+        public void accept(final K key, final D discriminator, final V value) {
+            sample(key, discriminator, value);
+        }
+
+        abstract void sample(K key, D discriminator, V value);
+
+        void appendLabels(final K key, final D discriminator, final String extraLabel, final double extraValue) {
+            output.append('{').append(keyLabel).append("=\"");
+            appendLabelValue(key);
+            output.append('"');
+            if (discriminator != null) {
+                output.append(',').append(discriminatorLabel).append("=\"");
+                appendLabelValue(discriminator);
+                output.append('"');
+            }
+            if (extraLabel != null) {
+                output.append(',').append(extraLabel).append("=\"");
+                appendNumber(extraValue);
+                output.append('"');
+            }
+            output.append('}');
+        }
+
+        void appendLabelValue(final Object value) {
+            if (value instanceof Long || value instanceof Integer) {
+                output.append(((Number)value).longValue());
+            } else {
+                appendEscaped(value instanceof CharSequence ? (CharSequence)value : value.toString(), true);
+            }
+        }
+
+        void appendEscaped(final CharSequence value, final boolean quotes) {
+            for (int i = 0; i < value.length(); i++) {
+                final char ch = value.charAt(i);
+                if (ch == '\\') {
+                    output.append("\\\\");
+                } else if (ch == '\n') {
+                    output.append("\\n");
+                } else if (ch == '"' && quotes) {
+                    output.append("\\\"");
+                } else if (ch < 0x80) {
+                    output.append(ch);
+                } else {
+                    i = appendUtf8(value, i);
+                }
+            }
+        }
+
+        /**
+         * Appends the non-ASCII character at index i UTF-8 encoded, combined with the next character if they form
+         * a surrogate pair;  unpaired surrogates are written as {@code '?'} as by {@link String#getBytes}.
+         *
+         * @return the index of the last consumed character
+         */
+        int appendUtf8(final CharSequence value, final int i) {
+            final ByteBuffer buffer = output.buffer();
+            final char ch = value.charAt(i);
+            if (ch < 0x800) {
+                buffer.put((byte)(0xc0 | (ch >>> 6)));
+                buffer.put((byte)(0x80 | (ch & 0x3f)));
+            } else if (!Character.isSurrogate(ch)) {
+                buffer.put((byte)(0xe0 | (ch >>> 12)));
+                buffer.put((byte)(0x80 | ((ch >>> 6) & 0x3f)));
+                buffer.put((byte)(0x80 | (ch & 0x3f)));
+            } else if (Character.isHighSurrogate(ch) && i + 1 < value.length() &&
+                    Character.isLowSurrogate(value.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(ch, value.charAt(i + 1));
+                buffer.put((byte)(0xf0 | (codePoint >>> 18)));
+                buffer.put((byte)(0x80 | ((codePoint >>> 12) & 0x3f)));
+                buffer.put((byte)(0x80 | ((codePoint >>> 6) & 0x3f)));
+                buffer.put((byte)(0x80 | (codePoint & 0x3f)));
+                return i + 1;
+            } else {
+                buffer.put((byte)'?');
+            }
+            return i;
+        }
+
+        void appendNumber(final double value) {
+            if (value == Double.POSITIVE_INFINITY) {
+                output.append("+Inf");
+            } else if (value == Double.NEGATIVE_INFINITY) {
+                output.append("-Inf");
+            } else {
+                output.append(value);
+            }
+        }
+    }
+
+    private final class ValueFamily<K,D,V> extends Family<K,D,V> {
+        final String suffix;
+        final ToDoubleFunction<? super V> value;
+
+        ValueFamily(final String name, final String help, final String type, final String suffix,
+                    final Repository<K,V> repository, final DiscriminatingRepository<K,D,V> discriminating,
+                    final String keyLabel, final String discriminatorLabel, final ToDoubleFunction<? super V> value) {
+            super(name, help, type, repository, discriminating, keyLabel, discriminatorLabel);
+            this.suffix = suffix;
+            this.value = Objects.requireNonNull(value);
+        }
+
+        @Override
+        void sample(final K key, final D discriminator, final V metric) {
+            output.append(name).append(suffix);
+            appendLabels(key, discriminator, null, 0);
+            output.append(' ');
+            appendNumber(value.applyAsDouble(metric));
+            output.append('\n');
+        }
+    }
+
+    private final class HistogramFamily<K,D,V extends HistogramMetric> extends Family<K,D,V> {
+        final double[] bounds;
+        final long[] counts;
+
+        HistogramFamily(final String name, final String help, final Repository<K,V> repository,
+                        final DiscriminatingRepository<K,D,V> discriminating, final String keyLabel,
+                        final String discriminatorLabel, final double[] bounds) {
+            super(name, help, "histogram", repository, discriminating, keyLabel, discriminatorLabel);
+            this.bounds = bounds.clone();
+            this.counts = new long[bounds.length];
+            for (int i = 1; i < bounds.length; i++) {
+                if (!(bounds[i] > bounds[i - 1])) {
+                    throw new IllegalArgumentException("Bounds must be strictly ascending: " + bounds[i - 1] +
+                            ", " + bounds[i]);
+                }
+            }
+        }
+
+        @Override
+        void sample(final K key, final D discriminator, final V histogram) {
+            histogram.cumulativeCounts(bounds, counts);
+            for (int i = 0; i < bounds.length; i++) {
+                output.append(name).append("_bucket");
+                appendLabels(key, discriminator, "le", bounds[i]);
+                output.append(' ').append(counts[i]).append('\n');
+            }
+            output.append(name).append("_bucket");
+            appendLabels(key, discriminator, "le", Double.POSITIVE_INFINITY);
+            output.append(' ').append(histogram.count()).append('\n');
+            output.append(name).append("_count");
+            appendLabels(key, discriminator, null, 0);
+            output.append(' ').append(histogram.count()).append('\n');
+            output.append(name).append("_sum");
+            appendLabels(key, discriminator, null, 0);
+            output.append(' ');
+            appendNumber(histogram.sum());
+            output.append('\n');
+        }
+    }
+}
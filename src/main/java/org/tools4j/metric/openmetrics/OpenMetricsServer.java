@@ -0,0 +1,177 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.openmetrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Minimal HTTP endpoint serving metrics rendered by an {@link OpenMetricsRenderer} for scraping, based on the
+ * JDK's built-in {@link HttpServer}.  Scrapes are served from a cached snapshot of the rendered bytes which is
+ * refreshed at most once per max age;  concurrent or frequent scrapes therefore do not cause additional rendering
+ * work and never interact with recording threads other than through the renderer.
+ * <p>
+ * Every refresh copies the rendered bytes into a new immutable snapshot which is published by a volatile write, so
+ * scrapes are served without holding any lock and a slow client never delays a refresh.  While one scrape renders a
+ * new snapshot, concurrent scrapes are served the previous one;  only scrapes arriving before the very first
+ * snapshot exists wait for it to be rendered.
+ */
+public class OpenMetricsServer implements AutoCloseable {
+
+    public static final String DEFAULT_PATH = "/metrics";
+
+    private final OpenMetricsRenderer renderer;
+    private final long maxAgeNanos;
+    private final HttpServer server;
+    private final ReentrantLock renderLock = new ReentrantLock();
+    private volatile Snapshot snapshot;
+
+    private OpenMetricsServer(final OpenMetricsRenderer renderer, final HttpServer server, final String path,
+                              final long maxAge, final TimeUnit unit) {
+        if (maxAge < 0) {
+            throw new IllegalArgumentException("Max age cannot be negative: " + maxAge);
+        }
+        this.renderer = Objects.requireNonNull(renderer);
+        this.maxAgeNanos = unit.toNanos(maxAge);
+        this.server = server;
+        server.createContext(path, this::handle);
+    }
+
+    /**
+     * Starts a server on the given port serving metrics at {@link #DEFAULT_PATH} re-rendered at most once per
+     * second.
+     *
+     * @param renderer  the renderer of the metrics
+     * @param port      the port to listen on
+     * @return the started server
+     * @throws IOException if the server cannot be bound to the port
+     */
+    public static OpenMetricsServer start(final OpenMetricsRenderer renderer, final int port) throws IOException {
+        return start(renderer, new InetSocketAddress(port), DEFAULT_PATH, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Starts a server serving metrics at the given address and path.
+     *
+     * @param renderer  the renderer of the metrics
+     * @param address   the address to listen on
+     * @param path      the path of the metrics endpoint, for instance {@link #DEFAULT_PATH}
+     * @param maxAge    the max age of the cached snapshot, zero to render for every scrape
+     * @param unit      the unit of max age
+     * @return the started server
+     * @throws IOException if the server cannot be bound to the address
+     */
+    public static OpenMetricsServer start(final OpenMetricsRenderer renderer, final InetSocketAddress address,
+                                          final String path, final long maxAge, final TimeUnit unit)
+            throws IOException {
+        final HttpServer server = HttpServer.create(address, 0);
+        final OpenMetricsServer metricsServer = new OpenMetricsServer(renderer, server, path, maxAge, unit);
+        server.start();
+        return metricsServer;
+    }
+
+    /**
+     * @return the address the server is bound to, for instance to find the port if started with port zero
+     */
+    public InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", OpenMetricsRenderer.CONTENT_TYPE);
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            final Snapshot current = snapshot();
+            exchange.sendResponseHeaders(200, current.bytes.length);
+            try (final OutputStream out = exchange.getResponseBody()) {
+                out.write(current.bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Snapshot snapshot() {
+        final Snapshot current = snapshot;
+        if (current != null) {
+            if (!current.isStale(maxAgeNanos) || !renderLock.tryLock()) {
+                //fresh, or another scrape is rendering the next snapshot
+                return current;
+            }
+        } else {
+            renderLock.lock();
+        }
+        try {
+            Snapshot latest = snapshot;
+            if (latest == null || latest.isStale(maxAgeNanos)) {
+                final ByteBuffer buffer = renderer.render();
+                final byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                latest = new Snapshot(bytes, System.nanoTime());
+                snapshot = latest;
+            }
+            return latest;
+        } finally {
+            renderLock.unlock();
+        }
+    }
+
+    /**
+     * Stops the server, waiting at most one second for active scrapes to complete.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+    }
+
+    private static final class Snapshot {
+        final byte[] bytes;
+        final long renderTimeNanos;
+
+        Snapshot(final byte[] bytes, final long renderTimeNanos) {
+            this.bytes = bytes;
+            this.renderTimeNanos = renderTimeNanos;
+        }
+
+        boolean isStale(final long maxAgeNanos) {
+            return System.nanoTime() - renderTimeNanos >= maxAgeNanos;
+        }
+    }
+}
@@ -0,0 +1,459 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.report;
+
+import org.tools4j.metric.api.Printable;
+import org.tools4j.metric.encode.ByteBufferTextOutput;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Sink that moves file I/O off the printing thread.  Printing threads encode into slots of a preallocated ring buffer
+ * and a background thread writes published slots to a {@link FileChannel} in batches using gathering writes.  The
+ * ring supports multiple producers;  slots are claimed with a single CAS and published with an ordered store.
+ * <p>
+ * Every slot holds one line of at most {@code slotSize} bytes;  longer lines are truncated and counted.  When the ring
+ * is full the {@link BackPressure} policy decides whether the printing thread drops the line, parks or spins.  The
+ * file is optionally rolled when it exceeds a maximum size or after a time period;  the rolled file is renamed by
+ * appending a time stamp to its name.
+ * <p>
+ * Printing does not allocate.  The sink also implements {@link ReportSink} so that it can be used by a
+ * {@link Reporter};  report bytes are then copied into as many consecutive slots as needed, all claimed at once so that
+ * reports are never interleaved or partially dropped.  Reports larger than the whole ring are dropped and counted.
+ * <p>
+ * I/O errors are counted, see {@link #errorCount()}, and passed to the {@link #errorHandler(Consumer) error handler}
+ * if one is set;  otherwise the exception is dropped.
+ */
+public class AsyncFileSink implements ReportSink, AutoCloseable {
+
+    /**
+     * Policy applied by a printing thread when the ring buffer is full.
+     */
+    public enum BackPressure {
+        /** The line is dropped and counted, see {@link #droppedCount()} */
+        DROP,
+        /** The printing thread parks until a slot is available */
+        BLOCK,
+        /** The printing thread busy spins until a slot is available */
+        SPIN
+    }
+
+    public static final int DEFAULT_SLOTS = 1024;
+    public static final int DEFAULT_SLOT_SIZE = 256;
+
+    private static final int MAX_BATCH = 64;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+    private static final long ROLL_RETRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private final Path file;
+    private final BackPressure backPressure;
+    private final long maxFileSize;
+    private final long rollPeriodNanos;
+    private final int mask;
+    private final ByteBufferTextOutput[] outputs;
+    private final ByteBuffer[] views;
+    private final int[] lengths;
+    private final AtomicLongArray published;
+    /** next sequence to claim, with the {@link #CLOSED} bit set once no more slots can be claimed */
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong truncatedCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final Thread drainer;
+    private volatile long head;
+    private volatile long writtenBytes;
+    private volatile long rollCount;
+    private volatile Consumer<? super Exception> errorHandler;
+    private FileChannel channel;
+    private long fileBytes;
+    private long fileStartTime;
+    private long rollRetryTime;
+
+    private AsyncFileSink(final Path file, final int slots, final int slotSize, final BackPressure backPressure,
+                          final long maxFileSize, final long rollPeriod, final TimeUnit unit) throws IOException {
+        if (slots < 1 || Integer.bitCount(slots) != 1) {
+            throw new IllegalArgumentException("Slots must be a positive power of two: " + slots);
+        }
+        if (slotSize < 2) {
+            throw new IllegalArgumentException("Slot size must be at least 2: " + slotSize);
+        }
+        if ((long)slots * slotSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Slots times slot size exceeds max buffer capacity: " +
+                    slots + " * " + slotSize);
+        }
+        if (maxFileSize < 0 || rollPeriod < 0) {
+            throw new IllegalArgumentException("Max file size and roll period must not be negative: " +
+                    maxFileSize + ", " + rollPeriod);
+        }
+        this.file = Objects.requireNonNull(file);
+        this.backPressure = Objects.requireNonNull(backPressure);
+        this.maxFileSize = maxFileSize;
+        this.rollPeriodNanos = unit.toNanos(rollPeriod);
+        this.mask = slots - 1;
+        this.outputs = new ByteBufferTextOutput[slots];
+        this.views = new ByteBuffer[slots];
+        this.lengths = new int[slots];
+        this.published = new AtomicLongArray(slots);
+        final ByteBuffer ring = ByteBuffer.allocateDirect(slots * slotSize);
+        for (int i = 0; i < slots; i++) {
+            ring.limit((i + 1) * slotSize).position(i * slotSize);
+            final ByteBuffer slot = ring.slice();
+            outputs[i] = new ByteBufferTextOutput(slot);
+            views[i] = slot.duplicate();
+            published.set(i, -1);
+        }
+        this.channel = openChannel(file);
+        this.fileStartTime = System.nanoTime();
+        this.rollRetryTime = fileStartTime;
+        this.drainer = new Thread(this::drain, "metric-async-file-sink");
+        this.drainer.setDaemon(true);
+    }
+
+    /**
+     * Opens a sink appending to the given file with default slots, dropping lines if the ring is full and without
+     * rolling.
+     *
+     * @param file the file to append to, created if it does not exist
+     * @return the sink with a started background thread
+     * @throws IOException if the file cannot be opened
+     */
+    public static AsyncFileSink open(final Path file) throws IOException {
+        return open(file, DEFAULT_SLOTS, DEFAULT_SLOT_SIZE, BackPressure.DROP, 0, 0, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Opens a sink appending to the given file.
+     *
+     * @param file          the file to append to, created if it does not exist
+     * @param slots         the number of slots in the ring buffer, a power of two
+     * @param slotSize      the size of a slot in bytes, the maximum length of a line
+     * @param backPressure  the policy applied when the ring is full
+     * @param maxFileSize   the file size in bytes after which the file is rolled, or zero for no size based rolling
+     * @param rollPeriod    the period after which the file is rolled, or zero for no time based rolling
+     * @param unit          the time unit of the roll period
+     * @return the sink with a started background thread
+     * @throws IOException if the file cannot be opened
+     */
+    public static AsyncFileSink open(final Path file, final int slots, final int slotSize,
+                                     final BackPressure backPressure, final long maxFileSize,
+                                     final long rollPeriod, final TimeUnit unit) throws IOException {
+        final AsyncFileSink sink = new AsyncFileSink(file, slots, slotSize, backPressure, maxFileSize, rollPeriod,
+                unit);
+        sink.drainer.start();
+        return sink;
+    }
+
+    /**
+     * Sets a handler invoked with I/O exceptions in the background thread;  without handler, errors are only counted.
+     *
+     * @param errorHandler the error handler, or null to only count errors
+     * @return this sink
+     */
+    public AsyncFileSink errorHandler(final Consumer<? super Exception> errorHandler) {
+        this.errorHandler = errorHandler;
+        return this;
+    }
+
+    /**
+     * Prints the printable followed by a line separator into a slot of the ring buffer.
+     *
+     * @param printable the printable to print
+     * @return true if the line was enqueued, false if it was dropped
+     */
+    public boolean print(final Printable printable) {
+        final long sequence = claim(1);
+        if (sequence < 0) {
+            return false;
+        }
+        final int index = (int)sequence & mask;
+        final ByteBufferTextOutput output = outputs[index];
+        final ByteBuffer buffer = output.buffer();
+        buffer.clear();
+        try {
+            printable.print(output);
+            output.append('\n');
+        } catch (final BufferOverflowException e) {
+            buffer.put(buffer.limit() - 1, (byte)'\n');
+            truncatedCount.incrementAndGet();
+        } catch (final RuntimeException e) {
+            buffer.clear();
+            publish(index, sequence, 0);
+            throw e;
+        }
+        publish(index, sequence, buffer.position());
+        return true;
+    }
+
+    /**
+     * Copies the report bytes into as many consecutive slots as needed, claimed at once;  the whole report is dropped
+     * and counted if it cannot be enqueued.
+     *
+     * @param bytes the buffer with the report bytes
+     */
+    @Override
+    public void write(final ByteBuffer bytes) {
+        final int slotSize = outputs[0].buffer().capacity();
+        final int length = bytes.remaining();
+        final int count = (length + slotSize - 1) / slotSize;
+        if (count == 0) {
+            return;
+        }
+        if (count > mask + 1) {
+            droppedCount.incrementAndGet();
+            bytes.position(bytes.limit());
+            return;
+        }
+        final long sequence = claim(count);
+        if (sequence < 0) {
+            bytes.position(bytes.limit());
+            return;
+        }
+        final int limit = bytes.limit();
+        for (int i = 0; i < count; i++) {
+            final int index = (int)(sequence + i) & mask;
+            final int chunk = Math.min(bytes.remaining(), slotSize);
+            final ByteBuffer buffer = outputs[index].buffer();
+            buffer.clear();
+            bytes.limit(bytes.position() + chunk);
+            buffer.put(bytes);
+            bytes.limit(limit);
+            publish(index, sequence + i, chunk);
+        }
+    }
+
+    private long claim(final int count) {
+        final int slots = mask + 1;
+        while (true) {
+            final long sequence = tail.get();
+            if ((sequence & CLOSED) != 0) {
+                droppedCount.incrementAndGet();
+                return -1;
+            }
+            if (sequence + count - head > slots) {
+                switch (backPressure) {
+                    case DROP:
+                        droppedCount.incrementAndGet();
+                        return -1;
+                    case BLOCK:
+                        LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                        break;
+                    default:
+                        break;
+                }
+            } else if (tail.compareAndSet(sequence, sequence + count)) {
+                return sequence;
+            }
+        }
+    }
+
+    private void publish(final int index, final long sequence, final int length) {
+        lengths[index] = length;
+        published.lazySet(index, sequence);
+    }
+
+    private void drain() {
+        long tail;
+        //once closed, tail is final and all claimed slots are eventually published
+        while (((tail = this.tail.get()) & CLOSED) == 0 || head != (tail & ~CLOSED)) {
+            final int written = drainBatch();
+            if (rollPeriodNanos > 0 && fileBytes > 0 && System.nanoTime() - fileStartTime >= rollPeriodNanos) {
+                tryRoll();
+            }
+            if (written == 0) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (final IOException e) {
+            handleError(e);
+        }
+    }
+
+    private void handleError(final IOException e) {
+        errorCount.incrementAndGet();
+        final Consumer<? super Exception> errorHandler = this.errorHandler;
+        if (errorHandler != null) {
+            errorHandler.accept(e);
+        }
+    }
+
+    private int drainBatch() {
+        final long head = this.head;
+        final int start = (int)head & mask;
+        final int max = Math.min(MAX_BATCH, mask + 1 - start);
+        int count = 0;
+        long bytes = 0;
+        while (count < max && published.get(start + count) == head + count) {
+            final ByteBuffer view = views[start + count];
+            final int length = lengths[start + count];
+            view.limit(length).position(0);
+            bytes += length;
+            count++;
+        }
+        if (count > 0) {
+            if (maxFileSize > 0 && fileBytes > 0 && fileBytes + bytes > maxFileSize) {
+                tryRoll();
+            }
+            try {
+                long remaining = bytes;
+                while (remaining > 0) {
+                    remaining -= channel.write(views, start, count);
+                }
+                fileBytes += bytes;
+                writtenBytes += bytes;
+            } catch (final IOException e) {
+                droppedCount.addAndGet(count);
+                handleError(e);
+            }
+            this.head = head + count;
+        }
+        return count;
+    }
+
+    /**
+     * Rolls the file unless a previous attempt failed less than a second ago.  If rolling fails, writing continues
+     * with the current channel.
+     */
+    private void tryRoll() {
+        final long time = System.nanoTime();
+        if (time - rollRetryTime < 0) {
+            return;
+        }
+        try {
+            roll();
+        } catch (final IOException e) {
+            rollRetryTime = time + ROLL_RETRY_NANOS;
+            handleError(e);
+        }
+    }
+
+    /**
+     * Renames the file while the current channel stays open, then opens a new channel for the file and only then
+     * swaps and closes the current channel.  If opening fails the rename is reverted;  if the file no longer exists
+     * because reverting failed before, only a new channel is opened.
+     */
+    private void roll() throws IOException {
+        final String name = file.getFileName().toString() + "." + System.currentTimeMillis();
+        Path rolled = file.resolveSibling(name);
+        for (int i = 1; Files.exists(rolled); i++) {
+            rolled = file.resolveSibling(name + "-" + i);
+        }
+        final boolean moved = Files.exists(file);
+        if (moved) {
+            Files.move(file, rolled);
+        }
+        final FileChannel next;
+        try {
+            next = openChannel(file);
+        } catch (final IOException e) {
+            if (moved) {
+                try {
+                    Files.move(rolled, file);
+                } catch (final IOException revert) {
+                    e.addSuppressed(revert);
+                }
+            }
+            throw e;
+        }
+        final FileChannel previous = channel;
+        channel = next;
+        fileBytes = 0;
+        fileStartTime = System.nanoTime();
+        rollCount++;
+        previous.close();
+    }
+
+    private static FileChannel openChannel(final Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Stops accepting lines, writes all enqueued lines and closes the file.
+     */
+    @Override
+    public void close() {
+        long sequence;
+        do {
+            sequence = tail.get();
+        } while ((sequence & CLOSED) == 0 && !tail.compareAndSet(sequence, sequence | CLOSED));
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the number of lines or reports dropped because the ring was full or closed, plus the number of slots
+     *         dropped because writing failed
+     */
+    public long droppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * @return the number of lines truncated because they exceeded the slot size
+     */
+    public long truncatedCount() {
+        return truncatedCount.get();
+    }
+
+    /**
+     * @return the number of I/O errors
+     */
+    public long errorCount() {
+        return errorCount.get();
+    }
+
+    /**
+     * @return the total number of bytes written to files
+     */
+    public long writtenBytes() {
+        return writtenBytes;
+    }
+
+    /**
+     * @return the number of times the file was rolled
+     */
+    public long rollCount() {
+        return rollCount;
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.report;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Sink writing reports to a {@link WritableByteChannel} such as a {@link FileChannel}.  Writing a direct buffer to a
+ * file channel does not copy or allocate.
+ */
+public class ChannelSink implements ReportSink, AutoCloseable {
+
+    private final WritableByteChannel channel;
+
+    public ChannelSink(final WritableByteChannel channel) {
+        this.channel = Objects.requireNonNull(channel);
+    }
+
+    /**
+     * @return a sink writing to the standard output file descriptor, bypassing {@link System#out}
+     */
+    public static ChannelSink stdout() {
+        return new ChannelSink(new FileOutputStream(FileDescriptor.out).getChannel());
+    }
+
+    /**
+     * @param file      the file to write to, created if it does not exist
+     * @param append    true to append to an existing file, false to truncate it
+     * @return a sink writing to the given file
+     * @throws IOException if the file cannot be opened
+     */
+    public static ChannelSink file(final Path file, final boolean append) throws IOException {
+        return new ChannelSink(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    public WritableByteChannel channel() {
+        return channel;
+    }
+
+    @Override
+    public void write(final ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
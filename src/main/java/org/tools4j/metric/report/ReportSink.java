@@ -0,0 +1,51 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.report;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Destination for reports written by a {@link Reporter}, for instance a file, standard out or a callback.
+ */
+@FunctionalInterface
+public interface ReportSink {
+    /**
+     * Consumes the bytes between position and limit of the given buffer.  The buffer is reused by the reporter
+     * and must not be retained after returning from this method.
+     *
+     * @param bytes the buffer with the report bytes, ASCII encoded
+     * @throws IOException if an I/O error occurs
+     */
+    void write(ByteBuffer bytes) throws IOException;
+
+    /**
+     * Flushes written bytes if the sink is buffered;  invoked after every complete report.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    default void flush() throws IOException {
+        //no-op by default
+    }
+}
@@ -0,0 +1,393 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.report;
+
+import org.tools4j.metric.api.Metric;
+import org.tools4j.metric.api.Printable;
+import org.tools4j.metric.api.Repository;
+import org.tools4j.metric.encode.ByteBufferTextOutput;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Reports registered printables and repositories to a {@link ReportSink} at a fixed rate.  Every report runs the
+ * registered {@link #beforeReport(Runnable) actions} first, for instance {@code roller::roll} of an
+ * {@link org.tools4j.metric.concurrent.IntervalRoller IntervalRoller} or {@code repository::snapshot} of a
+ * {@link org.tools4j.metric.concurrent.ShardedRepository ShardedRepository}, then prints one line per printable
+ * and per repository value and resets metrics registered via {@link #addWithReset(String, Metric)}.  For instance:
+ * <pre>
+ * Reporter reporter = new Reporter(1, TimeUnit.SECONDS, ChannelSink.stdout())
+ *         .header(output -&gt; output.append("time=").append(System.currentTimeMillis()))
+ *         .beforeReport(roller::roll)
+ *         .add("latency", latencyMetric);
+ * reporter.start();
+ * </pre>
+ * Reports are formatted into a preallocated direct buffer which is handed to the sink when full and at the end of
+ * every report;  a single line must fit into the buffer.  Steady state reporting does not allocate if the registered
+ * printables and the sink don't allocate.
+ * <p>
+ * The reporting thread schedules reports at {@code start + n * period}, hence the schedule does not drift with the
+ * time it takes to report.  Reports that are due while the previous report is still running are skipped and counted.
+ * Note that {@link #addWithReset(String, Metric) resetting} a metric after printing races with concurrent recording
+ * threads;  use interval metrics for an atomic roll over.
+ * <p>
+ * Failed reports are counted, see {@link #errorCount()}, and passed to the {@link #errorHandler(Consumer) error
+ * handler} if one is set;  otherwise the exception is dropped.
+ */
+public class Reporter implements AutoCloseable {
+
+    public static final int DEFAULT_BUFFER_CAPACITY = 64 * 1024;
+
+    private class Entry {
+        final String name;
+        final Printable printable;
+        final boolean reset;
+        Entry(final String name, final Printable printable, final boolean reset) {
+            this.name = name;
+            this.printable = printable;
+            this.reset = reset;
+        }
+
+        void report() throws IOException {
+            printLine(name, null, printable);
+            if (reset) {
+                ((Metric)printable).reset();
+            }
+        }
+    }
+
+    private final class RepositoryEntry extends Entry implements BiConsumer<Object, Printable> {
+        final Repository<?, ? extends Printable> repository;
+        IOException exception;
+        RepositoryEntry(final String name, final Repository<?, ? extends Printable> repository, final boolean reset) {
+            super(name, null, reset);
+            this.repository = repository;
+        }
+
+        @Override
+        void report() throws IOException {
+            exception = null;
+            repository.forEach(this);
+            if (exception != null) {
+                throw exception;
+            }
+        }
+
+        @Override
+        public void accept(final Object key, final Printable value) {
+            if (exception != null) {
+                return;
+            }
+            try {
+                printLine(name, key, value);
+                if (reset) {
+                    ((Metric)value).reset();
+                }
+            } catch (final IOException e) {
+                exception = e;
+            }
+        }
+    }
+
+    private final long periodNanos;
+    private final ReportSink sink;
+    private final ByteBufferTextOutput output;
+    private final List<Runnable> actions = new CopyOnWriteArrayList<>();
+    private final List<Entry> entries = new CopyOnWriteArrayList<>();
+    private final AtomicLong reportCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private volatile Printable header;
+    private volatile Consumer<? super Exception> errorHandler;
+    private volatile boolean running;
+    private Thread thread;
+
+    public Reporter(final long period, final TimeUnit unit, final ReportSink sink) {
+        this(period, unit, DEFAULT_BUFFER_CAPACITY, sink);
+    }
+
+    public Reporter(final long period, final TimeUnit unit, final int bufferCapacity, final ReportSink sink) {
+        this.periodNanos = unit.toNanos(period);
+        if (periodNanos <= 0) {
+            throw new IllegalArgumentException("Period must be positive: " + period + " " + unit);
+        }
+        this.sink = Objects.requireNonNull(sink);
+        this.output = new ByteBufferTextOutput(bufferCapacity);
+    }
+
+    /**
+     * Sets a header line printed at the start of every report, for instance a timestamp.
+     *
+     * @param header the header printable, or null for no header
+     * @return this reporter
+     */
+    public Reporter header(final Printable header) {
+        this.header = header;
+        return this;
+    }
+
+    /**
+     * Registers an action that is run before every report, for instance to roll interval metrics or to snapshot
+     * sharded repositories.
+     *
+     * @param action the action to run before printing
+     * @return this reporter
+     */
+    public Reporter beforeReport(final Runnable action) {
+        actions.add(Objects.requireNonNull(action));
+        return this;
+    }
+
+    public Reporter add(final Printable printable) {
+        return add("", printable);
+    }
+
+    public Reporter add(final String name, final Printable printable) {
+        entries.add(new Entry(Objects.requireNonNull(name), Objects.requireNonNull(printable), false));
+        return this;
+    }
+
+    /**
+     * Registers a repository whose values are printed with every report, one line per value prefixed with name and
+     * key, for instance {@code "latency.LSE p50=12.0 ..."}.
+     *
+     * @param name          the name printed before the key of every value, or empty to print the key only
+     * @param repository    the repository with the values to print
+     * @return this reporter
+     */
+    public Reporter add(final String name, final Repository<?, ? extends Printable> repository) {
+        entries.add(new RepositoryEntry(Objects.requireNonNull(name), Objects.requireNonNull(repository), false));
+        return this;
+    }
+
+    /**
+     * Registers a metric that is printed and then reset with every report.
+     *
+     * @param name      the name printed before the metric, or empty for no name
+     * @param metric    the metric to print and reset
+     * @return this reporter
+     */
+    public Reporter addWithReset(final String name, final Metric metric) {
+        entries.add(new Entry(Objects.requireNonNull(name), Objects.requireNonNull(metric), true));
+        return this;
+    }
+
+    /**
+     * Registers a repository whose metrics are printed and then reset with every report, one line per metric.
+     *
+     * @param name          the name printed before the key of every metric, or empty to print the key only
+     * @param repository    the repository with the metrics to print and reset
+     * @return this reporter
+     * @see #add(String, Repository)
+     */
+    public Reporter addWithReset(final String name, final Repository<?, ? extends Metric> repository) {
+        entries.add(new RepositoryEntry(Objects.requireNonNull(name), Objects.requireNonNull(repository), true));
+        return this;
+    }
+
+    /**
+     * Sets a handler invoked with the exception of a failed report in the reporting thread;  without handler,
+     * failures are only counted.
+     *
+     * @param errorHandler the error handler, or null to only count errors
+     * @return this reporter
+     */
+    public Reporter errorHandler(final Consumer<? super Exception> errorHandler) {
+        this.errorHandler = errorHandler;
+        return this;
+    }
+
+    /**
+     * Starts the reporting thread, a daemon thread named {@code "metric-reporter"}.
+     *
+     * @return this reporter
+     * @throws IllegalStateException if the reporter has already been started
+     */
+    public synchronized Reporter start() {
+        if (thread != null) {
+            throw new IllegalStateException("Reporter has already been started");
+        }
+        running = true;
+        thread = new Thread(this::run, "metric-reporter");
+        thread.setDaemon(true);
+        thread.start();
+        return this;
+    }
+
+    /**
+     * Stops the reporting thread and waits for it to terminate;  a report in progress is completed.
+     */
+    @Override
+    public void close() {
+        final Thread thread;
+        synchronized (this) {
+            thread = this.thread;
+            running = false;
+        }
+        if (thread != null && thread != Thread.currentThread()) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        long deadline = System.nanoTime() + periodNanos;
+        while (running) {
+            long wait;
+            while (running && (wait = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, wait);
+            }
+            if (!running) {
+                return;
+            }
+            try {
+                report();
+            } catch (final Exception e) {
+                errorCount.incrementAndGet();
+                final Consumer<? super Exception> errorHandler = this.errorHandler;
+                if (errorHandler != null) {
+                    errorHandler.accept(e);
+                }
+            }
+            deadline += periodNanos;
+            final long overdue = System.nanoTime() - deadline;
+            if (overdue >= 0) {
+                final long skipped = overdue / periodNanos + 1;
+                skippedCount.addAndGet(skipped);
+                deadline += skipped * periodNanos;
+            }
+        }
+    }
+
+    /**
+     * Performs a report immediately in the calling thread.
+     *
+     * @throws IOException if the sink throws an I/O exception
+     */
+    public synchronized void report() throws IOException {
+        for (int i = 0; i < actions.size(); i++) {
+            actions.get(i).run();
+        }
+        output.clear();
+        final Printable header = this.header;
+        if (header != null) {
+            printLine(null, null, header);
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).report();
+        }
+        flush();
+        sink.flush();
+        reportCount.incrementAndGet();
+    }
+
+    private void printLine(final String name, final Object key, final Printable printable) throws IOException {
+        final ByteBuffer buffer = output.buffer();
+        final int start = buffer.position();
+        try {
+            appendLine(name, key, printable);
+        } catch (final BufferOverflowException e) {
+            if (start == 0) {
+                throw lineExceedsCapacity(e);
+            }
+            buffer.position(start);
+            flush();
+            try {
+                appendLine(name, key, printable);
+            } catch (final BufferOverflowException retry) {
+                throw lineExceedsCapacity(retry);
+            }
+        }
+    }
+
+    private IllegalStateException lineExceedsCapacity(final BufferOverflowException e) {
+        return new IllegalStateException("Line exceeds buffer capacity " + output.buffer().capacity(), e);
+    }
+
+    private void appendLine(final String name, final Object key, final Printable printable) {
+        final boolean hasName = name != null && name.length() > 0;
+        if (hasName) {
+            output.append(name);
+        }
+        if (key != null) {
+            if (hasName) {
+                output.append('.');
+            }
+            if (key instanceof CharSequence) {
+                output.append((CharSequence)key);
+            } else if (key instanceof Long || key instanceof Integer) {
+                output.append(((Number)key).longValue());
+            } else {
+                output.append(key.toString());
+            }
+        }
+        if (hasName || key != null) {
+            output.append(' ');
+        }
+        printable.print(output);
+        output.append('\n');
+    }
+
+    private void flush() throws IOException {
+        final ByteBuffer buffer = output.buffer();
+        buffer.flip();
+        sink.write(buffer);
+        output.clear();
+    }
+
+    /**
+     * @return the number of completed reports
+     */
+    public long reportCount() {
+        return reportCount.get();
+    }
+
+    /**
+     * @return the number of reports skipped because the previous report was still running when they were due
+     */
+    public long skippedCount() {
+        return skippedCount.get();
+    }
+
+    /**
+     * @return the number of reports that failed with an exception
+     */
+    public long errorCount() {
+        return errorCount.get();
+    }
+}
@@ -26,6 +26,7 @@ package org.tools4j.metric.repository;
 import org.tools4j.metric.api.Repository;
 
 import java.util.Objects;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.ToIntFunction;
 
@@ -33,12 +34,14 @@ public class ArrayRepository<K,V> implements Repository<K,V> {
 
     private final ToIntFunction<? super K> ordinalFunction;
     private final Function<? super K, ? extends V> valueFactory;
+    private final Object[] keys;
     private final Object[] values;
 
     public ArrayRepository(final int length, final ToIntFunction<? super K> ordinalFunction,
                            final Function<? super K, ? extends V> valueFactory) {
         this.ordinalFunction = Objects.requireNonNull(ordinalFunction);
         this.valueFactory = Objects.requireNonNull(valueFactory);
+        this.keys = new Object[length];
         this.values = new Object[length];
     }
 
@@ -61,6 +64,7 @@ public class ArrayRepository<K,V> implements Repository<K,V> {
         Object val = values[ordinal];
         if (val == null) {
             val = valueFactory.apply(key);
+            keys[ordinal] = key;
             values[ordinal] = val;
         }
         @SuppressWarnings("unchecked")//safe cast because the valueFactory returns V
@@ -68,4 +72,17 @@ public class ArrayRepository<K,V> implements Repository<K,V> {
         return value;
     }
 
+    @Override
+    public void forEach(final BiConsumer<? super K, ? super V> consumer) {
+        for (int i = 0; i < values.length; i++) {
+            final Object value = values[i];
+            if (value != null) {
+                @SuppressWarnings("unchecked")//safe cast because only keys of type K are stored
+                final K key = (K)keys[i];
+                @SuppressWarnings("unchecked")//safe cast because the valueFactory returns V
+                final V v = (V)value;
+                consumer.accept(key, v);
+            }
+        }
+    }
 }
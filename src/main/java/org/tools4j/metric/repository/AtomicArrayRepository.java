@@ -26,6 +26,7 @@ package org.tools4j.metric.repository;
 import org.tools4j.metric.api.Repository;
 
 import java.util.Objects;
+import java.util.function.BiConsumer;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Function;
 import java.util.function.ToIntFunction;
@@ -34,12 +35,14 @@ public class AtomicArrayRepository<K,V> implements Repository<K,V> {
 
     private final ToIntFunction<? super K> ordinalFunction;
     private final Function<? super K, ? extends V> valueFactory;
+    private final AtomicReferenceArray<K> keys;
     private final AtomicReferenceArray<V> values;
 
     public AtomicArrayRepository(final int length, final ToIntFunction<? super K> ordinalFunction,
                                  final Function<? super K, ? extends V> valueFactory) {
         this.ordinalFunction = Objects.requireNonNull(ordinalFunction);
         this.valueFactory = Objects.requireNonNull(valueFactory);
+        this.keys = new AtomicReferenceArray<K>(length);
         this.values = new AtomicReferenceArray<V>(length);
     }
 
@@ -60,6 +63,7 @@ public class AtomicArrayRepository<K,V> implements Repository<K,V> {
         V value = values.get(ordinal);
         if (value == null) {
             value = valueFactory.apply(key);
+            keys.set(ordinal, key);
             if (!values.compareAndSet(ordinal, null, value)) {
                 value = values.get(ordinal);
             }
@@ -67,4 +71,13 @@ public class AtomicArrayRepository<K,V> implements Repository<K,V> {
         return value;
     }
 
+    @Override
+    public void forEach(final BiConsumer<? super K, ? super V> consumer) {
+        for (int i = 0; i < values.length(); i++) {
+            final V value = values.get(i);
+            if (value != null) {
+                consumer.accept(keys.get(i), value);
+            }
+        }
+    }
 }
@@ -0,0 +1,157 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.repository;
+
+import org.tools4j.metric.api.Repository;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Thread safe repository with {@link CharSequence} keys that are hashed and compared by content without creating
+ * strings.  The repository is backed by an open addressing hash table with linear probing.
+ * <p>
+ * Lookups of existing values are lock free and allocation free.  Values are created under a lock so that the value
+ * factory is invoked at most once per key;  the key is then copied into a string and published together with its
+ * hash code and the new value in an immutable entry.
+ *
+ * @param <V> the value type
+ */
+public class AtomicCharSequenceRepository<V> implements Repository<CharSequence,V> {
+
+    private static final class Entry<V> {
+        final int hash;
+        final String key;
+        final V value;
+        Entry(final int hash, final String key, final V value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private final Function<? super String, ? extends V> valueFactory;
+    private volatile AtomicReferenceArray<Entry<V>> table;
+    private int size;
+
+    public AtomicCharSequenceRepository(final Function<? super String, ? extends V> valueFactory) {
+        this(LongRepository.DEFAULT_INITIAL_CAPACITY, valueFactory);
+    }
+
+    public AtomicCharSequenceRepository(final int initialCapacity,
+                                        final Function<? super String, ? extends V> valueFactory) {
+        this.valueFactory = Objects.requireNonNull(valueFactory);
+        this.table = new AtomicReferenceArray<>(Hashing.tableLength(initialCapacity));
+    }
+
+    @Override
+    public boolean exists(final CharSequence key) {
+        return getOrNull(key) != null;
+    }
+
+    @Override
+    public V getOrNull(final CharSequence key) {
+        final int hash = Hashing.hashCode(key);
+        final AtomicReferenceArray<Entry<V>> table = this.table;
+        final int mask = table.length() - 1;
+        for (int index = Hashing.hash(hash) & mask; ; index = (index + 1) & mask) {
+            final Entry<V> entry = table.get(index);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.hash == hash && Hashing.contentEquals(entry.key, key)) {
+                return entry.value;
+            }
+        }
+    }
+
+    @Override
+    public V getOrCreate(final CharSequence key) {
+        final V value = getOrNull(key);
+        return value != null ? value : create(key);
+    }
+
+    private synchronized V create(final CharSequence key) {
+        final int hash = Hashing.hashCode(key);
+        AtomicReferenceArray<Entry<V>> table = this.table;
+        int mask = table.length() - 1;
+        int index = Hashing.hash(hash) & mask;
+        for (Entry<V> entry; (entry = table.get(index)) != null; index = (index + 1) & mask) {
+            if (entry.hash == hash && Hashing.contentEquals(entry.key, key)) {
+                return entry.value;
+            }
+        }
+        if (size >= Hashing.maxSize(table.length())) {
+            table = resize(table);
+            mask = table.length() - 1;
+            index = Hashing.hash(hash) & mask;
+            while (table.get(index) != null) {
+                index = (index + 1) & mask;
+            }
+        }
+        final String keyString = key.toString();
+        final V value = Objects.requireNonNull(valueFactory.apply(keyString), "valueFactory returned null");
+        table.set(index, new Entry<>(hash, keyString, value));
+        size++;
+        return value;
+    }
+
+    @Override
+    public void forEach(final BiConsumer<? super CharSequence, ? super V> consumer) {
+        final AtomicReferenceArray<Entry<V>> table = this.table;
+        for (int i = 0; i < table.length(); i++) {
+            final Entry<V> entry = table.get(i);
+            if (entry != null) {
+                consumer.accept(entry.key, entry.value);
+            }
+        }
+    }
+
+    /**
+     * @return the number of values in this repository
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private AtomicReferenceArray<Entry<V>> resize(final AtomicReferenceArray<Entry<V>> oldTable) {
+        final AtomicReferenceArray<Entry<V>> newTable = new AtomicReferenceArray<>(
+                Hashing.resizeLength(oldTable.length()));
+        final int newMask = newTable.length() - 1;
+        for (int i = 0; i < oldTable.length(); i++) {
+            final Entry<V> entry = oldTable.get(i);
+            if (entry != null) {
+                int index = Hashing.hash(entry.hash) & newMask;
+                while (newTable.get(index) != null) {
+                    index = (index + 1) & newMask;
+                }
+                newTable.set(index, entry);
+            }
+        }
+        this.table = newTable;
+        return newTable;
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.repository;
+
+import org.tools4j.metric.api.MultiDimensionalRepository;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Thread safe multi-dimensional repository storing all values in a single atomic array indexed in row-major order.
+ * The value factory is invoked with the flat index of the value to create;  the ordinals can be obtained via
+ * {@link #ordinalOf(int, int)} if required.
+ * Alternatively, repositories created via {@link #withOrdinals(Function, int...) withOrdinals} pass the ordinals
+ * of all dimensions to the value factory.
+ *
+ * @param <V> the value type
+ */
+public class AtomicMultiArrayRepository<V> implements MultiDimensionalRepository<V> {
+
+    private final Dimensions dimensions;
+    private final IntFunction<? extends V> valueFactory;
+    private final AtomicReferenceArray<V> values;
+
+    public AtomicMultiArrayRepository(final IntFunction<? extends V> valueFactory, final int... lengths) {
+        this(new Dimensions(lengths), valueFactory);
+    }
+
+    private AtomicMultiArrayRepository(final Dimensions dimensions, final IntFunction<? extends V> valueFactory) {
+        this.dimensions = dimensions;
+        this.valueFactory = Objects.requireNonNull(valueFactory);
+        this.values = new AtomicReferenceArray<V>(dimensions.size());
+    }
+
+    /**
+     * Returns a repository with one dimension per enum class, for instance for key, venue and side enums.
+     *
+     * @param valueFactory  the value factory invoked with the flat index
+     * @param enumClasses   the enum classes defining the dimensions
+     * @param <V>           the value type
+     * @return a new multi-dimensional repository
+     */
+    public static <V> AtomicMultiArrayRepository<V> forEnums(final IntFunction<? extends V> valueFactory,
+                                                             final Class<?>... enumClasses) {
+        return new AtomicMultiArrayRepository<>(valueFactory, Dimensions.enumLengths(enumClasses));
+    }
+
+    /**
+     * Returns a repository whose value factory is invoked with the ordinals of the value to create, one per
+     * dimension, instead of the flat index.
+     *
+     * @param valueFactory  the value factory invoked with a new array containing the ordinals
+     * @param lengths       the length of each dimension
+     * @param <V>           the value type
+     * @return a new multi-dimensional repository
+     */
+    public static <V> AtomicMultiArrayRepository<V> withOrdinals(
+            final Function<? super int[], ? extends V> valueFactory, final int... lengths) {
+        final Dimensions dimensions = new Dimensions(lengths);
+        return new AtomicMultiArrayRepository<>(dimensions, dimensions.ordinalsValueFactory(valueFactory));
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions.dimensions();
+    }
+
+    @Override
+    public int length(final int dimension) {
+        return dimensions.length(dimension);
+    }
+
+    @Override
+    public int size() {
+        return dimensions.size();
+    }
+
+    @Override
+    public int index(final int ordinal0, final int ordinal1) {
+        return dimensions.index(ordinal0, ordinal1);
+    }
+
+    @Override
+    public int index(final int ordinal0, final int ordinal1, final int ordinal2) {
+        return dimensions.index(ordinal0, ordinal1, ordinal2);
+    }
+
+    @Override
+    public int index(final int ordinal0, final int ordinal1, final int ordinal2, final int ordinal3) {
+        return dimensions.index(ordinal0, ordinal1, ordinal2, ordinal3);
+    }
+
+    @Override
+    public int index(final int... ordinals) {
+        return dimensions.index(ordinals);
+    }
+
+    @Override
+    public int ordinalOf(final int index, final int dimension) {
+        return dimensions.ordinalOf(index, dimension);
+    }
+
+    @Override
+    public V getOrNull(final int index) {
+        return values.get(index);
+    }
+
+    @Override
+    public V getOrCreate(final int index) {
+        V value = values.get(index);
+        if (value == null) {
+            value = valueFactory.apply(index);
+            if (!values.compareAndSet(index, null, value)) {
+                value = values.get(index);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public void forEach(final ObjIntConsumer<? super V> consumer) {
+        final int size = dimensions.size();
+        for (int index = 0; index < size; index++) {
+            final V value = values.get(index);
+            if (value != null) {
+                consumer.accept(value, index);
+            }
+        }
+    }
+}
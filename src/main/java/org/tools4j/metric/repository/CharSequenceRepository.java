@@ -0,0 +1,162 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.repository;
+
+import org.tools4j.metric.api.Repository;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Repository with {@link CharSequence} keys such as flyweight views of decoded messages.  Keys are hashed and
+ * compared by content without creating strings;  the key is copied into a string only when a new value is created.
+ * The repository is backed by an open addressing hash table with linear probing storing hash codes, keys and values
+ * in parallel arrays.
+ * <p>
+ * This repository is not thread safe, see {@link AtomicCharSequenceRepository} for a thread safe alternative.
+ *
+ * @param <V> the value type
+ */
+public class CharSequenceRepository<V> implements Repository<CharSequence,V> {
+
+    private final Function<? super String, ? extends V> valueFactory;
+    private int[] hashes;
+    private String[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    public CharSequenceRepository(final Function<? super String, ? extends V> valueFactory) {
+        this(LongRepository.DEFAULT_INITIAL_CAPACITY, valueFactory);
+    }
+
+    public CharSequenceRepository(final int initialCapacity, final Function<? super String, ? extends V> valueFactory) {
+        this.valueFactory = Objects.requireNonNull(valueFactory);
+        final int capacity = Hashing.tableLength(initialCapacity);
+        this.hashes = new int[capacity];
+        this.keys = new String[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+    }
+
+    @Override
+    public boolean exists(final CharSequence key) {
+        return getOrNull(key) != null;
+    }
+
+    @Override
+    public V getOrNull(final CharSequence key) {
+        final int hash = Hashing.hashCode(key);
+        final int[] hashes = this.hashes;
+        final String[] keys = this.keys;
+        final Object[] values = this.values;
+        for (int index = Hashing.hash(hash) & mask; ; index = (index + 1) & mask) {
+            final Object value = values[index];
+            if (value == null) {
+                return null;
+            }
+            if (hashes[index] == hash && Hashing.contentEquals(keys[index], key)) {
+                @SuppressWarnings("unchecked")//safe cast because the valueFactory returns V
+                final V v = (V)value;
+                return v;
+            }
+        }
+    }
+
+    @Override
+    public V getOrCreate(final CharSequence key) {
+        final int hash = Hashing.hashCode(key);
+        final int[] hashes = this.hashes;
+        final String[] keys = this.keys;
+        final Object[] values = this.values;
+        int index = Hashing.hash(hash) & mask;
+        for (Object value; (value = values[index]) != null; index = (index + 1) & mask) {
+            if (hashes[index] == hash && Hashing.contentEquals(keys[index], key)) {
+                @SuppressWarnings("unchecked")//safe cast because the valueFactory returns V
+                final V v = (V)value;
+                return v;
+            }
+        }
+        if (size >= Hashing.maxSize(values.length)) {
+            resize();
+            return getOrCreate(key);
+        }
+        final String keyString = key.toString();
+        final V value = Objects.requireNonNull(valueFactory.apply(keyString), "valueFactory returned null");
+        hashes[index] = hash;
+        keys[index] = keyString;
+        values[index] = value;
+        size++;
+        return value;
+    }
+
+    @Override
+    public void forEach(final BiConsumer<? super CharSequence, ? super V> consumer) {
+        final String[] keys = this.keys;
+        final Object[] values = this.values;
+        for (int i = 0; i < values.length; i++) {
+            final Object value = values[i];
+            if (value != null) {
+                @SuppressWarnings("unchecked")//safe cast because the valueFactory returns V
+                final V v = (V)value;
+                consumer.accept(keys[i], v);
+            }
+        }
+    }
+
+    /**
+     * @return the number of values in this repository
+     */
+    public int size() {
+        return size;
+    }
+
+    private void resize() {
+        final int[] oldHashes = hashes;
+        final String[] oldKeys = keys;
+        final Object[] oldValues = values;
+        final int capacity = Hashing.resizeLength(oldValues.length);
+        final int[] newHashes = new int[capacity];
+        final String[] newKeys = new String[capacity];
+        final Object[] newValues = new Object[capacity];
+        final int newMask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            final Object value = oldValues[i];
+            if (value != null) {
+                int index = Hashing.hash(oldHashes[i]) & newMask;
+                while (newValues[index] != null) {
+                    index = (index + 1) & newMask;
+                }
+                newHashes[index] = oldHashes[i];
+                newKeys[index] = oldKeys[i];
+                newValues[index] = value;
+            }
+        }
+        hashes = newHashes;
+        keys = newKeys;
+        values = newValues;
+        mask = newMask;
+    }
+}
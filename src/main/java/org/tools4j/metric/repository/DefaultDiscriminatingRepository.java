@@ -27,6 +27,7 @@ import org.tools4j.metric.api.DiscriminatingRepository;
 import org.tools4j.metric.api.Repository;
 
 import java.util.Objects;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -93,4 +94,40 @@ public class DefaultDiscriminatingRepository<K,D,V> implements DiscriminatingRep
         final Repository<D, V> repoForKey = discriminatingRepository.getOrCreate(key);
         return repoForKey.getOrCreate(discriminator);
     }
+
+    @Override
+    public void forEach(final BiConsumer<? super K, ? super V> consumer) {
+        repository.forEach(consumer);
+    }
+
+    /**
+     * Invokes the consumer for every discriminated value.  Allocates a single visitor per invocation which iterates
+     * the nested repository of every key directly.
+     *
+     * @param consumer the consumer invoked with key, discriminator and value
+     */
+    @Override
+    public void forEachDiscriminated(final DiscriminatedConsumer<? super K, ? super D, ? super V> consumer) {
+        discriminatingRepository.forEach(new DiscriminatedVisitor<>(consumer));
+    }
+
+    private static final class DiscriminatedVisitor<K,D,V> implements BiConsumer<K, Repository<D,V>> {
+        private final DiscriminatedConsumer<? super K, ? super D, ? super V> consumer;
+        private final BiConsumer<D,V> valueVisitor = this::acceptValue;
+        private K key;
+
+        DiscriminatedVisitor(final DiscriminatedConsumer<? super K, ? super D, ? super V> consumer) {
+            this.consumer = Objects.requireNonNull(consumer);
+        }
+
+        @Override
+        public void accept(final K key, final Repository<D, V> repoForKey) {
+            this.key = key;
+            repoForKey.forEach(valueVisitor);
+        }
+
+        private void acceptValue(final D discriminator, final V value) {
+            consumer.accept(key, discriminator, value);
+        }
+    }
 }
@@ -0,0 +1,155 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.repository;
+
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Maps ordinals of multiple dimensions to a flat row-major index.
+ */
+final class Dimensions {
+
+    private final int[] lengths;
+    private final int size;
+
+    Dimensions(final int... lengths) {
+        Objects.requireNonNull(lengths);
+        if (lengths.length < 1) {
+            throw new IllegalArgumentException("At least one dimension is required");
+        }
+        long size = 1;
+        for (final int length : lengths) {
+            if (length < 1) {
+                throw new IllegalArgumentException("Dimension length must be positive: " + length);
+            }
+            size *= length;
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Too many values for dimensions: " + size);
+            }
+        }
+        this.lengths = lengths.clone();
+        this.size = (int)size;
+    }
+
+    static int[] enumLengths(final Class<?>... enumClasses) {
+        final int[] lengths = new int[enumClasses.length];
+        for (int i = 0; i < enumClasses.length; i++) {
+            final Object[] constants = enumClasses[i].getEnumConstants();
+            if (constants == null) {
+                throw new IllegalArgumentException("Not an enum class: " + enumClasses[i]);
+            }
+            lengths[i] = constants.length;
+        }
+        return lengths;
+    }
+
+    int dimensions() {
+        return lengths.length;
+    }
+
+    int length(final int dimension) {
+        return lengths[dimension];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int index(final int ordinal0, final int ordinal1) {
+        checkDimensions(2);
+        return ordinal(ordinal0, 0) * lengths[1] + ordinal(ordinal1, 1);
+    }
+
+    int index(final int ordinal0, final int ordinal1, final int ordinal2) {
+        checkDimensions(3);
+        return (ordinal(ordinal0, 0) * lengths[1] + ordinal(ordinal1, 1)) * lengths[2] + ordinal(ordinal2, 2);
+    }
+
+    int index(final int ordinal0, final int ordinal1, final int ordinal2, final int ordinal3) {
+        checkDimensions(4);
+        return ((ordinal(ordinal0, 0) * lengths[1] + ordinal(ordinal1, 1)) * lengths[2] + ordinal(ordinal2, 2))
+                * lengths[3] + ordinal(ordinal3, 3);
+    }
+
+    int index(final int... ordinals) {
+        checkDimensions(ordinals.length);
+        int index = 0;
+        for (int dimension = 0; dimension < ordinals.length; dimension++) {
+            index = index * lengths[dimension] + ordinal(ordinals[dimension], dimension);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the ordinal of the given dimension for a flat index.
+     *
+     * @param index     the flat index
+     * @param dimension the dimension
+     * @return the ordinal in the given dimension
+     */
+    int ordinalOf(final int index, final int dimension) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        int value = index;
+        for (int d = lengths.length - 1; d > dimension; d--) {
+            value /= lengths[d];
+        }
+        return value % lengths[dimension];
+    }
+
+    /**
+     * Adapts a value factory taking the ordinals of all dimensions to a factory taking the flat index.
+     *
+     * @param valueFactory  the factory invoked with a new array containing the ordinals of the value to create
+     * @param <V>           the value type
+     * @return a value factory invoked with the flat index
+     */
+    <V> IntFunction<V> ordinalsValueFactory(final Function<? super int[], ? extends V> valueFactory) {
+        Objects.requireNonNull(valueFactory);
+        return index -> {
+            final int[] ordinals = new int[lengths.length];
+            for (int dimension = 0; dimension < ordinals.length; dimension++) {
+                ordinals[dimension] = ordinalOf(index, dimension);
+            }
+            return valueFactory.apply(ordinals);
+        };
+    }
+
+    private void checkDimensions(final int dimensions) {
+        if (lengths.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + lengths.length + " ordinals but found " + dimensions);
+        }
+    }
+
+    private int ordinal(final int ordinal, final int dimension) {
+        if (ordinal < 0 || ordinal >= lengths[dimension]) {
+            throw new IndexOutOfBoundsException("Ordinal " + ordinal + " out of bounds for dimension " + dimension +
+                    " with length " + lengths[dimension]);
+        }
+        return ordinal;
+    }
+}
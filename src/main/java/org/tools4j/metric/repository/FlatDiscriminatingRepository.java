@@ -0,0 +1,192 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.repository;
+
+import org.tools4j.metric.api.DiscriminatingRepository;
+import org.tools4j.metric.api.MultiDimensionalRepository;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Discriminating repository storing values for keys and for key/discriminator pairs in a single two-dimensional
+ * repository.  The second dimension has one more ordinal than the discriminator;  the last ordinal holds the value
+ * for the key without discriminator.  Compared to {@link DefaultDiscriminatingRepository} which nests repositories,
+ * a lookup costs a single array access.
+ *
+ * @param <K> the key type
+ * @param <D> the discriminator type
+ * @param <V> the value type
+ */
+public class FlatDiscriminatingRepository<K,D,V> implements DiscriminatingRepository<K,D,V> {
+
+    private final ToIntFunction<? super K> keyOrdinalFunction;
+    private final ToIntFunction<? super D> discriminatorOrdinalFunction;
+    private final MultiDimensionalRepository<V> repository;
+    private final IntFunction<? extends K> keyByOrdinal;
+    private final IntFunction<? extends D> discriminatorByOrdinal;
+    private final int noDiscriminatorOrdinal;
+
+    /**
+     * Constructor with key and discriminator ordinal functions and their inverse functions as required for
+     * iteration, and a two-dimensional repository whose second dimension has one more ordinal than the discriminator.
+     *
+     * @param keyOrdinalFunction            the function returning the ordinal for a key
+     * @param discriminatorOrdinalFunction  the function returning the ordinal for a discriminator
+     * @param keyByOrdinal                  the function returning the key for an ordinal
+     * @param discriminatorByOrdinal        the function returning the discriminator for an ordinal
+     * @param repository                    the two-dimensional repository with values
+     */
+    public FlatDiscriminatingRepository(final ToIntFunction<? super K> keyOrdinalFunction,
+                                        final ToIntFunction<? super D> discriminatorOrdinalFunction,
+                                        final IntFunction<? extends K> keyByOrdinal,
+                                        final IntFunction<? extends D> discriminatorByOrdinal,
+                                        final MultiDimensionalRepository<V> repository) {
+        if (repository.dimensions() != 2) {
+            throw new IllegalArgumentException("Repository must have 2 dimensions: " + repository.dimensions());
+        }
+        this.keyOrdinalFunction = Objects.requireNonNull(keyOrdinalFunction);
+        this.discriminatorOrdinalFunction = Objects.requireNonNull(discriminatorOrdinalFunction);
+        this.repository = repository;
+        this.keyByOrdinal = Objects.requireNonNull(keyByOrdinal);
+        this.discriminatorByOrdinal = Objects.requireNonNull(discriminatorByOrdinal);
+        this.noDiscriminatorOrdinal = repository.length(1) - 1;
+    }
+
+    public static <K extends Enum<K>,D extends Enum<D>,V> FlatDiscriminatingRepository<K,D,V> forEnums(
+            final Class<K> keyClass, final Class<D> discriminatorClass, final Supplier<? extends V> valueFactory) {
+        return forEnums(keyClass, k -> valueFactory.get(), discriminatorClass, d -> valueFactory.get());
+    }
+
+    public static <K extends Enum<K>,D extends Enum<D>,V> FlatDiscriminatingRepository<K,D,V> forEnums(
+            final Class<K> keyClass, final Function<? super K, ? extends V> valueFactory,
+            final Class<D> discriminatorClass, final Function<? super D, ? extends V> discriminatedValueFactory) {
+        final int discriminators = Enums.enumConstantCount(discriminatorClass);
+        return new FlatDiscriminatingRepository<>(Enum::ordinal, Enum::ordinal, byOrdinal(keyClass),
+                byOrdinal(discriminatorClass), new MultiArrayRepository<V>(
+                indexValueFactory(keyClass, valueFactory, discriminatorClass, discriminatedValueFactory),
+                Enums.enumConstantCount(keyClass), discriminators + 1));
+    }
+
+    public static <K extends Enum<K>,D extends Enum<D>,V> FlatDiscriminatingRepository<K,D,V> atomicForEnums(
+            final Class<K> keyClass, final Class<D> discriminatorClass, final Supplier<? extends V> valueFactory) {
+        return atomicForEnums(keyClass, k -> valueFactory.get(), discriminatorClass, d -> valueFactory.get());
+    }
+
+    public static <K extends Enum<K>,D extends Enum<D>,V> FlatDiscriminatingRepository<K,D,V> atomicForEnums(
+            final Class<K> keyClass, final Function<? super K, ? extends V> valueFactory,
+            final Class<D> discriminatorClass, final Function<? super D, ? extends V> discriminatedValueFactory) {
+        final int discriminators = Enums.enumConstantCount(discriminatorClass);
+        return new FlatDiscriminatingRepository<>(Enum::ordinal, Enum::ordinal, byOrdinal(keyClass),
+                byOrdinal(discriminatorClass), new AtomicMultiArrayRepository<V>(
+                indexValueFactory(keyClass, valueFactory, discriminatorClass, discriminatedValueFactory),
+                Enums.enumConstantCount(keyClass), discriminators + 1));
+    }
+
+    private static <E extends Enum<E>> IntFunction<E> byOrdinal(final Class<E> enumClass) {
+        final E[] constants = enumClass.getEnumConstants();
+        return ordinal -> constants[ordinal];
+    }
+
+    private static <K extends Enum<K>,D extends Enum<D>,V> IntFunction<V> indexValueFactory(
+            final Class<K> keyClass, final Function<? super K, ? extends V> valueFactory,
+            final Class<D> discriminatorClass, final Function<? super D, ? extends V> discriminatedValueFactory) {
+        Objects.requireNonNull(valueFactory);
+        Objects.requireNonNull(discriminatedValueFactory);
+        final K[] keys = keyClass.getEnumConstants();
+        final D[] discriminators = discriminatorClass.getEnumConstants();
+        final int columns = discriminators.length + 1;
+        return index -> {
+            final int discriminatorOrdinal = index % columns;
+            return discriminatorOrdinal == discriminators.length ?
+                    valueFactory.apply(keys[index / columns]) :
+                    discriminatedValueFactory.apply(discriminators[discriminatorOrdinal]);
+        };
+    }
+
+    @Override
+    public boolean exists(final K key) {
+        return getOrNull(key) != null;
+    }
+
+    @Override
+    public V getOrNull(final K key) {
+        return repository.getOrNull(keyOrdinalFunction.applyAsInt(key), noDiscriminatorOrdinal);
+    }
+
+    @Override
+    public V getOrCreate(final K key) {
+        return repository.getOrCreate(keyOrdinalFunction.applyAsInt(key), noDiscriminatorOrdinal);
+    }
+
+    @Override
+    public V getOrNull(final K key, final D discriminator) {
+        return repository.getOrNull(keyOrdinalFunction.applyAsInt(key), discriminatorOrdinal(discriminator));
+    }
+
+    @Override
+    public V getOrCreate(final K key, final D discriminator) {
+        return repository.getOrCreate(keyOrdinalFunction.applyAsInt(key), discriminatorOrdinal(discriminator));
+    }
+
+    @Override
+    public void forEach(final BiConsumer<? super K, ? super V> consumer) {
+        final int keys = repository.length(0);
+        for (int keyOrdinal = 0; keyOrdinal < keys; keyOrdinal++) {
+            final V value = repository.getOrNull(keyOrdinal, noDiscriminatorOrdinal);
+            if (value != null) {
+                consumer.accept(keyByOrdinal.apply(keyOrdinal), value);
+            }
+        }
+    }
+
+    @Override
+    public void forEachDiscriminated(final DiscriminatedConsumer<? super K, ? super D, ? super V> consumer) {
+        final int columns = noDiscriminatorOrdinal + 1;
+        final int size = repository.size();
+        for (int index = 0; index < size; index++) {
+            final int discriminatorOrdinal = index % columns;
+            if (discriminatorOrdinal != noDiscriminatorOrdinal) {
+                final V value = repository.getOrNull(index);
+                if (value != null) {
+                    consumer.accept(keyByOrdinal.apply(index / columns),
+                            discriminatorByOrdinal.apply(discriminatorOrdinal), value);
+                }
+            }
+        }
+    }
+
+    private int discriminatorOrdinal(final D discriminator) {
+        final int ordinal = discriminatorOrdinalFunction.applyAsInt(discriminator);
+        if (ordinal >= noDiscriminatorOrdinal) {
+            throw new IndexOutOfBoundsException("Discriminator ordinal " + ordinal + " out of bounds for length " +
+                    noDiscriminatorOrdinal);
+        }
+        return ordinal;
+    }
+}
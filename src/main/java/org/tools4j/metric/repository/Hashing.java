@@ -0,0 +1,107 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.repository;
+
+/**
+ * Hash functions and table sizing for open addressing repositories with power of two table lengths.
+ */
+final class Hashing {
+
+    static final int MAX_TABLE_LENGTH = 1 << 30;
+
+    static int hash(final long key) {
+        final long h = key * 0x9e3779b97f4a7c15L;
+        return (int)(h ^ (h >>> 32));
+    }
+
+    static int hash(final int key) {
+        final int h = key * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the hash code of the characters of the given sequence, equal to {@link String#hashCode()} for a string
+     * with the same characters.
+     *
+     * @param chars the character sequence
+     * @return the content based hash code
+     */
+    static int hashCode(final CharSequence chars) {
+        int h = 0;
+        for (int i = 0; i < chars.length(); i++) {
+            h = 31 * h + chars.charAt(i);
+        }
+        return h;
+    }
+
+    static boolean contentEquals(final String key, final CharSequence chars) {
+        final int length = key.length();
+        if (length != chars.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (key.charAt(i) != chars.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the table length for the given capacity such that the table's load factor does not exceed 0.5.
+     *
+     * @param capacity the number of entries that should fit into the table without resize
+     * @return a power of two table length
+     */
+    static int tableLength(final int capacity) {
+        if (capacity < 0 || capacity > MAX_TABLE_LENGTH / 2) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        final int length = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+        return Math.min(length, MAX_TABLE_LENGTH);
+    }
+
+    /**
+     * @param tableLength the current table length
+     * @return the doubled table length
+     * @throws IllegalStateException if the table length cannot be increased any further
+     */
+    static int resizeLength(final int tableLength) {
+        if (tableLength >= MAX_TABLE_LENGTH) {
+            throw new IllegalStateException("Maximum table length " + MAX_TABLE_LENGTH + " reached");
+        }
+        return tableLength << 1;
+    }
+
+    /**
+     * @param tableLength the table length
+     * @return the maximum number of entries before the table must be resized
+     */
+    static int maxSize(final int tableLength) {
+        if (tableLength >= MAX_TABLE_LENGTH) {
+            return MAX_TABLE_LENGTH - 1;
+        }
+        return tableLength >> 1;
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.repository;
+
+import org.tools4j.metric.api.Repository;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.LongFunction;
+
+/**
+ * Repository with primitive long keys backed by an open addressing hash table with linear probing.  Keys and values
+ * are stored in parallel arrays;  no objects are allocated by {@link #getOrNull(long)} or by
+ * {@link #getOrCreate(long)} unless a new value is created or the table is resized.
+ * <p>
+ * This repository is not thread safe, see {@link AtomicLongRepository} for a thread safe alternative.
+ *
+ * @param <V> the value type
+ */
+public class LongRepository<V> implements Repository<Long,V> {
+
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    private final LongFunction<? extends V> valueFactory;
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    public LongRepository(final LongFunction<? extends V> valueFactory) {
+        this(DEFAULT_INITIAL_CAPACITY, valueFactory);
+    }
+
+    public LongRepository(final int initialCapacity, final LongFunction<? extends V> valueFactory) {
+        this.valueFactory = Objects.requireNonNull(valueFactory);
+        final int capacity = Hashing.tableLength(initialCapacity);
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+    }
+
+    @Override
+    public V getOrNull(final Long key) {
+        return getOrNull(key.longValue());
+    }
+
+    @Override
+    public V getOrCreate(final Long key) {
+        return getOrCreate(key.longValue());
+    }
+
+    public boolean exists(final long key) {
+        return getOrNull(key) != null;
+    }
+
+    public V getOrNull(final long key) {
+        final long[] keys = this.keys;
+        final Object[] values = this.values;
+        for (int index = Hashing.hash(key) & mask; ; index = (index + 1) & mask) {
+            final Object value = values[index];
+            if (value == null) {
+                return null;
+            }
+            if (keys[index] == key) {
+                @SuppressWarnings("unchecked")//safe cast because the valueFactory returns V
+                final V v = (V)value;
+                return v;
+            }
+        }
+    }
+
+    public V getOrCreate(final long key) {
+        final long[] keys = this.keys;
+        final Object[] values = this.values;
+        int index = Hashing.hash(key) & mask;
+        for (Object value; (value = values[index]) != null; index = (index + 1) & mask) {
+            if (keys[index] == key) {
+                @SuppressWarnings("unchecked")//safe cast because the valueFactory returns V
+                final V v = (V)value;
+                return v;
+            }
+        }
+        if (size >= Hashing.maxSize(values.length)) {
+            resize();
+            return getOrCreate(key);
+        }
+        final V value = Objects.requireNonNull(valueFactory.apply(key), "valueFactory returned null");
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        return value;
+    }
+
+    /**
+     * Invokes the consumer for every key and value;  keys are boxed which allocates for values outside of the
+     * {@link Long#valueOf(long)} cache.
+     *
+     * @param consumer the consumer invoked with key and value
+     */
+    @Override
+    public void forEach(final BiConsumer<? super Long, ? super V> consumer) {
+        final long[] keys = this.keys;
+        final Object[] values = this.values;
+        for (int i = 0; i < values.length; i++) {
+            final Object value = values[i];
+            if (value != null) {
+                @SuppressWarnings("unchecked")//safe cast because the valueFactory returns V
+                final V v = (V)value;
+                consumer.accept(keys[i], v);
+            }
+        }
+    }
+
+    /**
+     * @return the number of values in this repository
+     */
+    public int size() {
+        return size;
+    }
+
+    private void resize() {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+        final int capacity = Hashing.resizeLength(oldValues.length);
+        final long[] newKeys = new long[capacity];
+        final Object[] newValues = new Object[capacity];
+        final int newMask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            final Object value = oldValues[i];
+            if (value != null) {
+                int index = Hashing.hash(oldKeys[i]) & newMask;
+                while (newValues[index] != null) {
+                    index = (index + 1) & newMask;
+                }
+                newKeys[index] = oldKeys[i];
+                newValues[index] = value;
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+        mask = newMask;
+    }
+}
@@ -27,6 +27,7 @@ import org.tools4j.metric.api.Repository;
 
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 
 public class MapRepository<K,V> implements Repository<K,V> {
@@ -49,4 +50,13 @@ public class MapRepository<K,V> implements Repository<K,V> {
         return backingMap.computeIfAbsent(key, valueFactory);
     }
 
+    /**
+     * Iterates via {@link Map#forEach(BiConsumer)} which does not allocate an iterator for the JDK's hash maps.
+     *
+     * @param consumer the consumer invoked with key and value
+     */
+    @Override
+    public void forEach(final BiConsumer<? super K, ? super V> consumer) {
+        backingMap.forEach(consumer);
+    }
 }
@@ -0,0 +1,105 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.repository;
+
+import org.tools4j.metric.api.DiscriminatingRepository;
+import org.tools4j.metric.api.DiscriminatingRepository.DiscriminatedConsumer;
+import org.tools4j.metric.api.Mergeable;
+import org.tools4j.metric.api.Metric;
+import org.tools4j.metric.api.Repository;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Bulk operations on all metrics of a repository based on {@link Repository#forEach(BiConsumer)}.
+ */
+public final class Repositories {
+
+    private static final BiConsumer<Object, Metric> RESET = (key, metric) -> metric.reset();
+    private static final DiscriminatedConsumer<Object, Object, Metric> RESET_DISCRIMINATED =
+            (key, discriminator, metric) -> metric.reset();
+
+    private Repositories() {
+        //static utility methods only
+    }
+
+    /**
+     * Resets all metrics of the given repository.
+     *
+     * @param repository the repository with the metrics to reset
+     */
+    public static void resetAll(final Repository<?, ? extends Metric> repository) {
+        repository.forEach(RESET);
+    }
+
+    /**
+     * Resets all metrics of the given repository including discriminated metrics.
+     *
+     * @param repository the repository with the metrics to reset
+     */
+    public static void resetAll(final DiscriminatingRepository<?, ?, ? extends Metric> repository) {
+        repository.forEach(RESET);
+        repository.forEachDiscriminated(RESET_DISCRIMINATED);
+    }
+
+    /**
+     * Copies all metrics of the source repository into the target repository by resetting the target metric
+     * for every key of source and merging the source metric into it.  Target metrics are created on first use and
+     * reused subsequently.  Note that a visitor is allocated with every invocation, use
+     * {@link #snapshotter(Repository, Repository)} for repeated snapshots without allocation.
+     *
+     * @param source    the repository with the metrics to copy
+     * @param target    the repository receiving the copies
+     * @param <K>       the key type
+     * @param <V>       the metric type
+     */
+    public static <K, V extends Metric & Mergeable<? super V>> void snapshotAll(
+            final Repository<K, ? extends V> source, final Repository<K, V> target) {
+        snapshotter(source, target).run();
+    }
+
+    /**
+     * Returns a reusable action copying all metrics of the source repository into the target repository as
+     * described in {@link #snapshotAll(Repository, Repository)}, for instance to pass to
+     * {@link org.tools4j.metric.report.Reporter#beforeReport(Runnable) Reporter.beforeReport(..)}.
+     *
+     * @param source    the repository with the metrics to copy
+     * @param target    the repository receiving the copies
+     * @param <K>       the key type
+     * @param <V>       the metric type
+     * @return an action performing the snapshot without allocation when run
+     */
+    public static <K, V extends Metric & Mergeable<? super V>> Runnable snapshotter(
+            final Repository<K, ? extends V> source, final Repository<K, V> target) {
+        Objects.requireNonNull(source);
+        Objects.requireNonNull(target);
+        final BiConsumer<K, V> copy = (key, metric) -> {
+            final V snapshot = target.getOrCreate(key);
+            snapshot.reset();
+            snapshot.mergeFrom(metric);
+        };
+        return () -> source.forEach(copy);
+    }
+}
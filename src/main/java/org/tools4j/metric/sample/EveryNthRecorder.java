@@ -0,0 +1,63 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.sample;
+
+import org.tools4j.metric.api.MetricRecorder;
+
+/**
+ * Deterministic sampling recorder passing every n-th value to the metric recorder, starting with the first value.
+ */
+public class EveryNthRecorder extends SamplingRecorder {
+
+    private final int n;
+    private int countdown = 0;
+
+    public EveryNthRecorder(final MetricRecorder recorder, final int n) {
+        super(recorder);
+        if (n < 1) {
+            throw new IllegalArgumentException("N must be positive: " + n);
+        }
+        this.n = n;
+    }
+
+    @Override
+    public void record(final double value) {
+        seenCount++;
+        if (--countdown < 0) {
+            countdown = n - 1;
+            recordedCount++;
+            recorder.record(value);
+        }
+    }
+
+    @Override
+    public void resetCounts() {
+        super.resetCounts();
+        countdown = 0;
+    }
+
+    public int n() {
+        return n;
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.sample;
+
+import org.tools4j.metric.api.MetricRecorder;
+
+/**
+ * Sampling recorder passing every value to the metric recorder with a fixed probability.  Random numbers are drawn
+ * from a xorshift generator held by the recorder, which is cheaper than {@link java.util.concurrent.ThreadLocalRandom}
+ * and needs no thread local lookup as the recorder is confined to one thread.
+ */
+public class ProbabilisticRecorder extends SamplingRecorder {
+
+    private final double probability;
+    private final long threshold;
+    private long random = seed();
+
+    public ProbabilisticRecorder(final MetricRecorder recorder, final double probability) {
+        super(recorder);
+        if (!(probability > 0 && probability <= 1)) {
+            throw new IllegalArgumentException("Probability must be in (0, 1]: " + probability);
+        }
+        this.probability = probability;
+        this.threshold = (long)(probability * (1L << 53));
+    }
+
+    @Override
+    public void record(final double value) {
+        seenCount++;
+        random = xorShift(random);
+        if ((random >>> 11) < threshold) {
+            recordedCount++;
+            recorder.record(value);
+        }
+    }
+
+    public double probability() {
+        return probability;
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.sample;
+
+import org.tools4j.metric.api.MetricRecorder;
+
+/**
+ * Sampling recorder keeping a uniform random sample of fixed size of all seen values in a preallocated reservoir
+ * (Vitter's algorithm R).  The sampled values are passed to the metric recorder by {@link #flush()}, for instance
+ * before the metric is printed.  The recorded count is the number of flushed values.
+ */
+public class ReservoirRecorder extends SamplingRecorder {
+
+    private final double[] reservoir;
+    private int size;
+    private long random = seed();
+    private long reservoirSeen;
+
+    public ReservoirRecorder(final MetricRecorder recorder, final int capacity) {
+        super(recorder);
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.reservoir = new double[capacity];
+    }
+
+    @Override
+    public void record(final double value) {
+        seenCount++;
+        reservoirSeen++;
+        if (size < reservoir.length) {
+            reservoir[size++] = value;
+        } else {
+            random = xorShift(random);
+            final long index = (random >>> 1) % reservoirSeen;
+            if (index < reservoir.length) {
+                reservoir[(int)index] = value;
+            }
+        }
+    }
+
+    /**
+     * Passes the sampled values to the metric recorder and empties the reservoir.
+     */
+    public void flush() {
+        for (int i = 0; i < size; i++) {
+            recorder.record(reservoir[i]);
+        }
+        recordedCount += size;
+        size = 0;
+        reservoirSeen = 0;
+    }
+
+    @Override
+    public void resetCounts() {
+        super.resetCounts();
+        size = 0;
+        reservoirSeen = 0;
+    }
+
+    /**
+     * @return the number of values currently held in the reservoir
+     */
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return reservoir.length;
+    }
+}
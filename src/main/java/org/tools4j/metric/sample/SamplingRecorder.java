@@ -0,0 +1,99 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.sample;
+
+import org.tools4j.metric.api.LongMetricRecorder;
+import org.tools4j.metric.api.MetricRecorder;
+
+import java.util.Objects;
+
+/**
+ * Base class for recorders that pass only a sample of the recorded values to the recorder of a metric.  The exact
+ * number of seen and recorded values is tracked so that counts, sums and rates of the metric can be scaled back up
+ * with {@link #scale(double)}.
+ * <p>
+ * Sampling recorders are not thread safe and should be confined to one recording thread.
+ */
+public abstract class SamplingRecorder implements MetricRecorder, LongMetricRecorder {
+
+    protected final MetricRecorder recorder;
+    protected long seenCount;
+    protected long recordedCount;
+
+    protected SamplingRecorder(final MetricRecorder recorder) {
+        this.recorder = Objects.requireNonNull(recorder);
+    }
+
+    @Override
+    public void record(final long value) {
+        record((double)value);
+    }
+
+    /**
+     * @return the number of values passed to this recorder
+     */
+    public long seenCount() {
+        return seenCount;
+    }
+
+    /**
+     * @return the number of values passed on to the metric recorder
+     */
+    public long recordedCount() {
+        return recordedCount;
+    }
+
+    /**
+     * Scales a count, sum or rate of the sampled metric back up to the seen values.
+     *
+     * @param value the value to scale, for instance the sum of the sampled metric
+     * @return value multiplied by {@code seenCount / recordedCount}, or NaN if no value has been recorded
+     */
+    public double scale(final double value) {
+        return recordedCount == 0 ? Double.NaN : value * seenCount / recordedCount;
+    }
+
+    /**
+     * Resets seen and recorded counts, usually together with the metric.
+     */
+    public void resetCounts() {
+        seenCount = 0;
+        recordedCount = 0;
+    }
+
+    static long seed() {
+        final long seed = System.nanoTime() ^ Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return seed == 0 ? 0x9E3779B97F4A7C15L : seed;
+    }
+
+    /**
+     * Returns the next state of Marsaglia's xorshift64 generator.
+     */
+    static long xorShift(long x) {
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        return x;
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.timer;
+
+import org.tools4j.metric.api.NanoClock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Clock returning a cached {@link System#nanoTime()} value updated by a background thread at a fixed resolution.
+ * Reading the clock costs a volatile read, which is cheaper than {@code System.nanoTime()} on some platforms, at
+ * the price of the resolution.  Suitable for sampling coarse durations or for rolling time windows.
+ */
+public class CachedNanoClock implements NanoClock, AutoCloseable {
+
+    private final long resolutionNanos;
+    private final Thread updater;
+    private volatile long nanoTime;
+    private volatile boolean running = true;
+
+    private CachedNanoClock(final long resolution, final TimeUnit unit) {
+        this.resolutionNanos = unit.toNanos(resolution);
+        if (resolutionNanos <= 0) {
+            throw new IllegalArgumentException("Resolution must be positive: " + resolution + " " + unit);
+        }
+        this.nanoTime = System.nanoTime();
+        this.updater = new Thread(this::update, "metric-cached-nano-clock");
+        this.updater.setDaemon(true);
+    }
+
+    /**
+     * Creates a cached clock and starts its daemon update thread.
+     *
+     * @param resolution    the interval at which the cached time is updated
+     * @param unit          the unit of the resolution
+     * @return a new started clock
+     */
+    public static CachedNanoClock start(final long resolution, final TimeUnit unit) {
+        final CachedNanoClock clock = new CachedNanoClock(resolution, unit);
+        clock.updater.start();
+        return clock;
+    }
+
+    private void update() {
+        while (running) {
+            nanoTime = System.nanoTime();
+            LockSupport.parkNanos(this, resolutionNanos);
+        }
+    }
+
+    @Override
+    public long nanoTime() {
+        return nanoTime;
+    }
+
+    /**
+     * @return the interval at which the cached time is updated, in nanoseconds
+     */
+    public long resolutionNanos() {
+        return resolutionNanos;
+    }
+
+    /**
+     * Stops the update thread;  the clock returns the last cached time afterwards.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(updater);
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.timer;
+
+import org.tools4j.metric.api.LongMetricRecorder;
+import org.tools4j.metric.api.Metric;
+import org.tools4j.metric.api.NanoClock;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Reusable timer recording elapsed nanoseconds into a metric, for instance a histogram.  The timer is started and
+ * stopped explicitly or used with try-with-resources without allocation:
+ * <pre>
+ * Timer timer = new Timer(histogram);
+ * ...
+ * try (Timer t = timer.start()) {
+ *     //timed code
+ * }
+ * </pre>
+ * The overhead of reading the clock is calibrated when the timer is created and subtracted from every measurement;
+ * results are never negative.  A timer is not thread safe and should be confined to one thread.
+ */
+public class Timer implements AutoCloseable {
+
+    private static final int CALIBRATION_SAMPLES = 10000;
+    private static final int CALIBRATION_ROUNDS = 5;
+
+    private static final class SystemClockOverhead {
+        static final long NANOS = calibrate(NanoClock.SYSTEM);
+    }
+
+    private final LongMetricRecorder recorder;
+    private final NanoClock clock;
+    private final long overheadNanos;
+    private long startTime;
+    private boolean running;
+
+    public Timer(final Metric metric) {
+        this(metric.longRecorder(), NanoClock.SYSTEM, SystemClockOverhead.NANOS);
+    }
+
+    public Timer(final LongMetricRecorder recorder, final NanoClock clock) {
+        this(recorder, clock, clock == NanoClock.SYSTEM ? SystemClockOverhead.NANOS : calibrate(clock));
+    }
+
+    public Timer(final LongMetricRecorder recorder, final NanoClock clock, final long overheadNanos) {
+        if (overheadNanos < 0) {
+            throw new IllegalArgumentException("Overhead must not be negative: " + overheadNanos);
+        }
+        this.recorder = Objects.requireNonNull(recorder);
+        this.clock = Objects.requireNonNull(clock);
+        this.overheadNanos = overheadNanos;
+    }
+
+    /**
+     * Measures the overhead of reading the given clock as the median difference of two consecutive clock reads
+     * after a warm up.
+     *
+     * @param clock the clock to calibrate
+     * @return the clock read overhead in nanoseconds
+     */
+    public static long calibrate(final NanoClock clock) {
+        final long[] samples = new long[CALIBRATION_SAMPLES];
+        for (int round = 0; round < CALIBRATION_ROUNDS; round++) {
+            for (int i = 0; i < samples.length; i++) {
+                final long start = clock.nanoTime();
+                samples[i] = clock.nanoTime() - start;
+            }
+        }
+        Arrays.sort(samples);
+        return Math.max(0, samples[samples.length / 2]);
+    }
+
+    /**
+     * Starts or restarts the timer.
+     *
+     * @return this timer, for use with try-with-resources
+     */
+    public Timer start() {
+        running = true;
+        startTime = clock.nanoTime();
+        return this;
+    }
+
+    /**
+     * Stops the timer and records the elapsed time minus the calibrated overhead.
+     *
+     * @return the recorded elapsed time in nanoseconds
+     * @throws IllegalStateException if the timer is not running
+     */
+    public long stop() {
+        final long endTime = clock.nanoTime();
+        if (!running) {
+            throw new IllegalStateException("Timer is not running");
+        }
+        running = false;
+        final long elapsed = Math.max(0, endTime - startTime - overheadNanos);
+        recorder.record(elapsed);
+        return elapsed;
+    }
+
+    /**
+     * Stops the timer if it is running;  invoked at the end of a try-with-resources block.
+     */
+    @Override
+    public void close() {
+        if (running) {
+            stop();
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return the calibrated clock read overhead subtracted from every measurement, in nanoseconds
+     */
+    public long overheadNanos() {
+        return overheadNanos;
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.window;
+
+import org.tools4j.metric.api.MetricRecorder;
+import org.tools4j.metric.api.NanoClock;
+import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.TextOutput;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metric that counts the number of recorded values or events over a sliding time window, for instance to report
+ * events per second over the last minute.
+ *
+ * @see WindowMetric
+ */
+public class WindowCountMetric extends WindowMetric {
+
+    private final long[] counts;
+    private final MetricRecorder recorder = this::record;
+    private final Printer<? super WindowCountMetric> printer;
+
+    public WindowCountMetric(final long window, final TimeUnit unit) {
+        this(window, unit, "count");
+    }
+
+    public WindowCountMetric(final long window, final TimeUnit unit, final String name) {
+        this(window, unit, DEFAULT_BUCKETS, NanoClock.SYSTEM,
+                (metric, output) -> output.append(name).append('=').append(metric.count()));
+    }
+
+    public WindowCountMetric(final long window, final TimeUnit unit, final int buckets, final NanoClock clock,
+                             final Printer<? super WindowCountMetric> printer) {
+        super(window, unit, buckets, clock);
+        this.counts = new long[buckets];
+        this.printer = Objects.requireNonNull(printer);
+    }
+
+    @Override
+    public MetricRecorder recorder() {
+        return recorder;
+    }
+
+    @Override
+    public void record(final double value) {
+        counts[roll()]++;
+    }
+
+    /**
+     * Increments the count by one, equivalent to recording any value.
+     */
+    public void increment() {
+        counts[roll()]++;
+    }
+
+    @Override
+    protected void clearBucket(final int bucket) {
+        counts[bucket] = 0;
+    }
+
+    /**
+     * @return the number of values recorded within the window
+     */
+    public long count() {
+        roll();
+        long count = 0;
+        for (final long c : counts) {
+            count += c;
+        }
+        return count;
+    }
+
+    /**
+     * @param unit the time unit for the rate, for instance {@link TimeUnit#SECONDS} for events per second
+     * @return the count within the window divided by the window length in the given time unit
+     */
+    public double rate(final TimeUnit unit) {
+        return count() * (double)unit.toNanos(1) / window(TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void print(final TextOutput output) {
+        printer.print(this, output);
+    }
+}
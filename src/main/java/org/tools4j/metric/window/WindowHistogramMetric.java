@@ -0,0 +1,117 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.window;
+
+import org.tools4j.metric.api.MetricRecorder;
+import org.tools4j.metric.api.NanoClock;
+import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.TextOutput;
+import org.tools4j.metric.basic.HistogramMetric;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metric that tracks the distribution of a sampled value over a sliding time window, for instance latency
+ * percentiles over the last minute.  Every bucket of the ring is a {@link HistogramMetric};  reading adds all buckets
+ * into a preallocated histogram returned by {@link #histogram()}.
+ * <p>
+ * Note that every bucket allocates the full range of histogram buckets, hence range and precision should be chosen
+ * with the number of buckets in mind.
+ *
+ * @see WindowMetric
+ */
+public class WindowHistogramMetric extends WindowMetric {
+
+    private final HistogramMetric[] histograms;
+    private final HistogramMetric window;
+    private final MetricRecorder recorder = this::record;
+    private final Printer<? super WindowHistogramMetric> printer;
+
+    public WindowHistogramMetric(final long window, final TimeUnit unit) {
+        this(window, unit, DEFAULT_BUCKETS, NanoClock.SYSTEM, HistogramMetric.DEFAULT_LOWEST_TRACKABLE_VALUE,
+                HistogramMetric.DEFAULT_HIGHEST_TRACKABLE_VALUE, HistogramMetric.DEFAULT_PRECISION_BITS,
+                histogramPrinter(HistogramMetric.percentilePrinter(" ", 50, 99, 99.9)));
+    }
+
+    public WindowHistogramMetric(final long window, final TimeUnit unit, final int buckets, final NanoClock clock,
+                                 final double lowestTrackableValue, final double highestTrackableValue,
+                                 final int precisionBits, final Printer<? super WindowHistogramMetric> printer) {
+        super(window, unit, buckets, clock);
+        this.histograms = new HistogramMetric[buckets];
+        for (int i = 0; i < buckets; i++) {
+            histograms[i] = new HistogramMetric(lowestTrackableValue, highestTrackableValue, precisionBits);
+        }
+        this.window = new HistogramMetric(lowestTrackableValue, highestTrackableValue, precisionBits);
+        this.printer = Objects.requireNonNull(printer);
+    }
+
+    /**
+     * Returns a printer for window histogram metrics printing the {@link #histogram() window histogram} with the
+     * given histogram printer.
+     *
+     * @param printer the printer for the window histogram, for instance a
+     *                {@link HistogramMetric#percentilePrinter(String, double...) percentile printer}
+     * @return a printer for window histogram metrics
+     */
+    public static Printer<WindowHistogramMetric> histogramPrinter(final Printer<? super HistogramMetric> printer) {
+        Objects.requireNonNull(printer);
+        return (metric, output) -> printer.print(metric.histogram(), output);
+    }
+
+    @Override
+    public MetricRecorder recorder() {
+        return recorder;
+    }
+
+    @Override
+    public void record(final double value) {
+        histograms[roll()].record(value);
+    }
+
+    @Override
+    protected void clearBucket(final int bucket) {
+        histograms[bucket].reset();
+    }
+
+    /**
+     * Returns a histogram with all values recorded within the window.  The returned histogram is reused and only
+     * valid until the next invocation of this method.
+     *
+     * @return the histogram with all values recorded within the window
+     */
+    public HistogramMetric histogram() {
+        roll();
+        window.reset();
+        for (final HistogramMetric histogram : histograms) {
+            window.mergeFrom(histogram);
+        }
+        return window;
+    }
+
+    @Override
+    public void print(final TextOutput output) {
+        printer.print(this, output);
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.window;
+
+import org.tools4j.metric.api.MetricRecorder;
+import org.tools4j.metric.api.NanoClock;
+import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.TextOutput;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metric that tracks the maximum of a sampled value over a sliding time window, for instance the maximum latency
+ * over the last 10 seconds.
+ *
+ * @see WindowMetric
+ */
+public class WindowMaxMetric extends WindowMetric {
+
+    private final double[] maxs;
+    private final MetricRecorder recorder = this::record;
+    private final Printer<? super WindowMaxMetric> printer;
+
+    public WindowMaxMetric(final long window, final TimeUnit unit) {
+        this(window, unit, "max");
+    }
+
+    public WindowMaxMetric(final long window, final TimeUnit unit, final String name) {
+        this(window, unit, DEFAULT_BUCKETS, NanoClock.SYSTEM,
+                (metric, output) -> output.append(name).append('=').append(metric.max()));
+    }
+
+    public WindowMaxMetric(final long window, final TimeUnit unit, final int buckets, final NanoClock clock,
+                           final Printer<? super WindowMaxMetric> printer) {
+        super(window, unit, buckets, clock);
+        this.maxs = new double[buckets];
+        Arrays.fill(maxs, Double.NaN);
+        this.printer = Objects.requireNonNull(printer);
+    }
+
+    @Override
+    public MetricRecorder recorder() {
+        return recorder;
+    }
+
+    @Override
+    public void record(final double value) {
+        final int bucket = roll();
+        final double max = maxs[bucket];
+        maxs[bucket] = Double.isNaN(max) ? value : Double.max(max, value);
+    }
+
+    @Override
+    protected void clearBucket(final int bucket) {
+        maxs[bucket] = Double.NaN;
+    }
+
+    /**
+     * @return the maximum of all values recorded within the window, or NaN if no values were recorded
+     */
+    public double max() {
+        roll();
+        double max = Double.NaN;
+        for (final double m : maxs) {
+            if (!Double.isNaN(m)) {
+                max = Double.isNaN(max) ? m : Double.max(max, m);
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public void print(final TextOutput output) {
+        printer.print(this, output);
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.window;
+
+import org.tools4j.metric.api.Metric;
+import org.tools4j.metric.api.MetricRecorder;
+import org.tools4j.metric.api.NanoClock;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base class for metrics over a sliding time window.  The window is divided into a fixed ring of buckets;  values
+ * are recorded into the bucket of the current time and the value of the metric is aggregated over all buckets.
+ * Buckets that have fallen out of the window are cleared lazily when recording or reading, hence no timer thread
+ * is needed.
+ * <p>
+ * The aggregated value covers all samples recorded within the last {@code window - bucketDuration} to
+ * {@code window} nanoseconds depending on how far the current bucket has progressed.  More buckets result in
+ * a smoother window at the cost of more memory and longer reads.
+ * <p>
+ * All buckets are allocated at construction time.  Window metrics are not thread safe.
+ */
+public abstract class WindowMetric implements Metric, MetricRecorder {
+
+    public static final int DEFAULT_BUCKETS = 10;
+
+    private final NanoClock clock;
+    private final long bucketNanos;
+    private final int buckets;
+    private long currentEpoch;
+    private int current;
+
+    protected WindowMetric(final long window, final TimeUnit unit, final int buckets, final NanoClock clock) {
+        if (buckets < 1) {
+            throw new IllegalArgumentException("Buckets must be positive: " + buckets);
+        }
+        final long windowNanos = unit.toNanos(window);
+        if (windowNanos < buckets) {
+            throw new IllegalArgumentException("Window must be at least " + buckets + " nanoseconds: " +
+                    windowNanos);
+        }
+        this.clock = Objects.requireNonNull(clock);
+        this.bucketNanos = windowNanos / buckets;
+        this.buckets = buckets;
+        this.currentEpoch = Math.floorDiv(clock.nanoTime(), bucketNanos);
+    }
+
+    /**
+     * Advances the ring to the bucket of the current time, clearing buckets that have fallen out of the window.
+     *
+     * @return the index of the current bucket
+     */
+    protected final int roll() {
+        final long epoch = Math.floorDiv(clock.nanoTime(), bucketNanos);
+        final long elapsed = epoch - currentEpoch;
+        if (elapsed > 0) {
+            final int n = (int)Math.min(elapsed, buckets);
+            for (int i = 1; i <= n; i++) {
+                clearBucket((current + i) % buckets);
+            }
+            current = (int)((current + elapsed) % buckets);
+            currentEpoch = epoch;
+        }
+        return current;
+    }
+
+    /**
+     * Clears the bucket with the given index.
+     *
+     * @param bucket the bucket index
+     */
+    protected abstract void clearBucket(int bucket);
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < buckets; i++) {
+            clearBucket(i);
+        }
+    }
+
+    /**
+     * @return the number of buckets in the ring
+     */
+    public int bucketCount() {
+        return buckets;
+    }
+
+    /**
+     * @param unit the time unit for the result
+     * @return the duration of one bucket in the given unit
+     */
+    public long bucketDuration(final TimeUnit unit) {
+        return unit.convert(bucketNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param unit the time unit for the result
+     * @return the duration of the window in the given unit
+     */
+    public long window(final TimeUnit unit) {
+        return unit.convert(bucketNanos * buckets, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.window;
+
+import org.tools4j.metric.api.MetricRecorder;
+import org.tools4j.metric.api.NanoClock;
+import org.tools4j.metric.api.Printer;
+import org.tools4j.metric.api.TextOutput;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metric that tracks the minimum of a sampled value over a sliding time window.
+ *
+ * @see WindowMetric
+ */
+public class WindowMinMetric extends WindowMetric {
+
+    private final double[] mins;
+    private final MetricRecorder recorder = this::record;
+    private final Printer<? super WindowMinMetric> printer;
+
+    public WindowMinMetric(final long window, final TimeUnit unit) {
+        this(window, unit, "min");
+    }
+
+    public WindowMinMetric(final long window, final TimeUnit unit, final String name) {
+        this(window, unit, DEFAULT_BUCKETS, NanoClock.SYSTEM,
+                (metric, output) -> output.append(name).append('=').append(metric.min()));
+    }
+
+    public WindowMinMetric(final long window, final TimeUnit unit, final int buckets, final NanoClock clock,
+                           final Printer<? super WindowMinMetric> printer) {
+        super(window, unit, buckets, clock);
+        this.mins = new double[buckets];
+        Arrays.fill(mins, Double.NaN);
+        this.printer = Objects.requireNonNull(printer);
+    }
+
+    @Override
+    public MetricRecorder recorder() {
+        return recorder;
+    }
+
+    @Override
+    public void record(final double value) {
+        final int bucket = roll();
+        final double min = mins[bucket];
+        mins[bucket] = Double.isNaN(min) ? value : Double.min(min, value);
+    }
+
+    @Override
+    protected void clearBucket(final int bucket) {
+        mins[bucket] = Double.NaN;
+    }
+
+    /**
+     * @return the minimum of all values recorded within the window, or NaN if no values were recorded
+     */
+    public double min() {
+        roll();
+        double min = Double.NaN;
+        for (final double m : mins) {
+            if (!Double.isNaN(m)) {
+                min = Double.isNaN(min) ? m : Double.min(min, m);
+            }
+        }
+        return min;
+    }
+
+    @Override
+    public void print(final TextOutput output) {
+        printer.print(this, output);
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.basic;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test for {@link HistogramMetric}.
+ */
+public class HistogramMetricTest {
+
+    @Test
+    public void emptyHistogram() {
+        final HistogramMetric histogram = new HistogramMetric();
+        assertEquals(0, histogram.count());
+        assertEquals(Double.NaN, histogram.valueAtQuantile(0.5), 0);
+        assertEquals(Double.NaN, histogram.min(), 0);
+        assertEquals(Double.NaN, histogram.max(), 0);
+    }
+
+    @Test
+    public void quantilesAreExactForIntegersOnBucketEdges() {
+        final HistogramMetric histogram = new HistogramMetric();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        assertEquals(100, histogram.count());
+        assertEquals(5050, histogram.sum(), 0);
+        assertEquals(1, histogram.valueAtQuantile(0), 0);
+        assertEquals(10, histogram.valueAtQuantile(0.1), 0);
+        assertEquals(50, histogram.valueAtQuantile(0.5), 0);
+        assertEquals(99, histogram.valueAtQuantile(0.99), 0);
+        assertEquals(100, histogram.valueAtQuantile(1), 0);
+    }
+
+    @Test
+    public void quantilesHaveBoundedRelativeError() {
+        final int precisionBits = 5;
+        final HistogramMetric histogram = new HistogramMetric(1e-3, 1e12, precisionBits);
+        final Random random = new Random(7);
+        final double[] values = new double[10000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.exp(random.nextDouble() * 20);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (final double quantile : new double[] {0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999}) {
+            final double exact = values[Math.max(0, (int)Math.ceil(quantile * values.length) - 1)];
+            final double value = histogram.valueAtQuantile(quantile);
+            assertTrue(quantile + ": " + value + " < " + exact, value >= exact);
+            assertTrue(quantile + ": " + value + " vs " + exact, value <= exact * (1 + Math.pow(2, -precisionBits)));
+        }
+        assertEquals(values[values.length - 1], histogram.valueAtQuantile(1), 0);
+    }
+
+    @Test
+    public void cumulativeCountsAreExactForBoundsOnBucketEdges() {
+        final HistogramMetric histogram = new HistogramMetric();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        final double[] bounds = {0.5, 1, 10, 50, 64, 99, 100, 1000};
+        final long[] counts = new long[bounds.length];
+        histogram.cumulativeCounts(bounds, counts);
+        assertArrayEquals(new long[] {0, 1, 10, 50, 64, 99, 100, 100}, counts);
+    }
+
+    @Test
+    public void cumulativeCountsAreNeverTooHigh() {
+        final HistogramMetric histogram = new HistogramMetric(1e-6, 1e6, 7);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i / 1000.0);
+        }
+        final double[] bounds = {0.0001, 0.01, 0.1, 0.25, 0.5, 0.7, 1};
+        final long[] counts = new long[bounds.length];
+        histogram.cumulativeCounts(bounds, counts);
+        for (int i = 0; i < bounds.length; i++) {
+            final long exact = Math.round(Math.floor(bounds[i] * 1000 + 1e-9));
+            assertTrue(bounds[i] + ": " + counts[i] + " > " + exact, counts[i] <= exact);
+            assertTrue(bounds[i] + ": " + counts[i] + " << " + exact, counts[i] >= exact - 1);
+        }
+        //powers of two are bucket edges
+        assertEquals(250, counts[3]);
+        assertEquals(500, counts[4]);
+        assertEquals(1000, counts[6]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cumulativeCountsRejectsDescendingBounds() {
+        new HistogramMetric().cumulativeCounts(new double[] {2, 1}, new long[2]);
+    }
+
+    @Test
+    public void valuesOutsideTrackableRange() {
+        final HistogramMetric histogram = new HistogramMetric(10, 1000, 3);
+        histogram.record(0.5);
+        histogram.record(5000);
+        histogram.record(Double.NaN);
+        assertEquals(2, histogram.count());
+        assertEquals(0.5, histogram.min(), 0);
+        assertEquals(5000, histogram.max(), 0);
+        assertEquals(5000, histogram.valueAtQuantile(1), 0);
+    }
+
+    @Test
+    public void expectedIntervalBackFillMatchesIndividualRecording() {
+        final Random random = new Random(3);
+        for (int i = 0; i < 200; i++) {
+            final int precisionBits = random.nextInt(8);
+            final double interval = 1 + random.nextInt(100) * 0.37;
+            final double value = interval * (2 + random.nextInt(3000)) + random.nextDouble();
+            final HistogramMetric backFilled = new HistogramMetric(1, 1e9, precisionBits);
+            final HistogramMetric individual = new HistogramMetric(1, 1e9, precisionBits);
+            backFilled.recordWithExpectedInterval(value, interval);
+            individual.record(value);
+            for (long k = 1; k <= (long)((value - interval) / interval); k++) {
+                individual.record(value - k * interval);
+            }
+            assertEquals(individual.count(), backFilled.count());
+            assertEquals(individual.min(), backFilled.min(), 0);
+            assertEquals(individual.sum(), backFilled.sum(), 1e-9 * individual.sum());
+            for (int q = 0; q <= 100; q += 5) {
+                assertEquals(individual.valueAtQuantile(q / 100.0), backFilled.valueAtQuantile(q / 100.0), 0);
+            }
+        }
+    }
+
+    @Test
+    public void mergeFromAddsCounts() {
+        final HistogramMetric first = new HistogramMetric();
+        final HistogramMetric second = new HistogramMetric();
+        for (int i = 1; i <= 50; i++) {
+            first.record(i);
+            second.record(50 + i);
+        }
+        first.mergeFrom(second);
+        assertEquals(100, first.count());
+        assertEquals(1, first.min(), 0);
+        assertEquals(100, first.max(), 0);
+        assertEquals(50, first.valueAtQuantile(0.5), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mergeFromRejectsDifferentPrecision() {
+        new HistogramMetric(1, 1000, 3).mergeFrom(new HistogramMetric(1, 1000, 4));
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.concurrent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit test for the striped concurrent metrics recording from multiple threads.
+ */
+public class ConcurrentMetricTest {
+
+    private static final int THREADS = 4;
+    private static final int VALUES_PER_THREAD = 100000;
+
+    private static void recordConcurrently(final Recording recording) throws InterruptedException {
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            threads.add(new Thread(() -> {
+                for (int i = 1; i <= VALUES_PER_THREAD; i++) {
+                    recording.record(thread, i);
+                }
+            }));
+        }
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private interface Recording {
+        void record(int thread, int value);
+    }
+
+    @Test
+    public void recordsFromMultipleThreads() throws InterruptedException {
+        final ConcurrentSumMetric sum = new ConcurrentSumMetric();
+        final ConcurrentMinMetric min = new ConcurrentMinMetric();
+        final ConcurrentMaxMetric max = new ConcurrentMaxMetric();
+        final ConcurrentAvgMetric avg = new ConcurrentAvgMetric();
+        recordConcurrently((thread, value) -> {
+            sum.record(value);
+            min.record(-value * (thread + 1));
+            max.record(value * (thread + 1));
+            avg.record(value);
+        });
+        final double sumPerThread = VALUES_PER_THREAD * (VALUES_PER_THREAD + 1L) / 2.0;
+        assertEquals(THREADS * sumPerThread, sum.sum(), 0);
+        assertEquals(-THREADS * VALUES_PER_THREAD, min.min(), 0);
+        assertEquals(THREADS * VALUES_PER_THREAD, max.max(), 0);
+        assertEquals(THREADS * VALUES_PER_THREAD, avg.count());
+        assertEquals(THREADS * sumPerThread, avg.sum(), 0);
+        assertEquals((VALUES_PER_THREAD + 1) / 2.0, avg.avg(), 0);
+    }
+
+    @Test
+    public void resetClearsAllStripes() throws InterruptedException {
+        final ConcurrentSumMetric sum = new ConcurrentSumMetric();
+        final ConcurrentAvgMetric avg = new ConcurrentAvgMetric();
+        recordConcurrently((thread, value) -> {
+            sum.record(value);
+            avg.record(value);
+        });
+        sum.reset();
+        avg.reset();
+        assertEquals(0, sum.sum(), 0);
+        assertEquals(0, avg.count());
+        sum.record(2);
+        avg.record(2);
+        assertEquals(2, sum.sum(), 0);
+        assertEquals(2, avg.avg(), 0);
+    }
+}
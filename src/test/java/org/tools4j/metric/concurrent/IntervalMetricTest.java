@@ -0,0 +1,124 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.concurrent;
+
+import org.junit.Test;
+import org.tools4j.metric.basic.SumMetric;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit test for {@link IntervalMetric} and {@link IntervalRoller}.
+ */
+public class IntervalMetricTest {
+
+    private static final int THREADS = 4;
+    private static final int VALUES_PER_THREAD = 200000;
+
+    private static List<Thread> startRecording(final Runnable recording) {
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final Thread thread = new Thread(() -> {
+                for (int i = 0; i < VALUES_PER_THREAD; i++) {
+                    recording.run();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        return threads;
+    }
+
+    private static boolean isAlive(final List<Thread> threads) {
+        for (final Thread thread : threads) {
+            if (thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void swapReturnsValuesOfLastInterval() {
+        final IntervalMetric<SumMetric> metric = new IntervalMetric<>(SumMetric::new);
+        metric.record(1);
+        metric.record(2);
+        assertEquals(3, metric.swap().sum(), 0);
+        metric.record(5);
+        assertEquals(3, metric.snapshot().sum(), 0);
+        assertEquals(5, metric.swap().sum(), 0);
+        assertEquals(0, metric.swap().sum(), 0);
+        metric.record(7);
+        metric.reset();
+        assertEquals(0, metric.snapshot().sum(), 0);
+        assertEquals(0, metric.swap().sum(), 0);
+    }
+
+    @Test
+    public void swappingLosesNoValues() throws InterruptedException {
+        final IntervalMetric<ConcurrentSumMetric> metric = new IntervalMetric<>(ConcurrentSumMetric::new);
+        final List<Thread> threads = startRecording(() -> metric.record(1));
+        double total = 0;
+        int swaps = 0;
+        while (isAlive(threads)) {
+            total += metric.swap().sum();
+            swaps++;
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        total += metric.swap().sum();
+        assertEquals("total after " + swaps + " swaps", THREADS * VALUES_PER_THREAD, total, 0);
+    }
+
+    @Test
+    public void rollingLosesNoValues() throws InterruptedException {
+        final IntervalRoller roller = new IntervalRoller();
+        final IntervalMetric<ConcurrentSumMetric> first = roller.create(ConcurrentSumMetric::new);
+        final IntervalMetric<ConcurrentSumMetric> second = roller.create(ConcurrentSumMetric::new);
+        assertEquals(2, roller.size());
+        final List<Thread> threads = startRecording(() -> {
+            first.record(1);
+            second.record(2);
+        });
+        double firstTotal = 0;
+        double secondTotal = 0;
+        while (isAlive(threads)) {
+            roller.roll();
+            firstTotal += first.snapshot().sum();
+            secondTotal += second.snapshot().sum();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        roller.roll();
+        firstTotal += first.snapshot().sum();
+        secondTotal += second.snapshot().sum();
+        assertEquals(THREADS * VALUES_PER_THREAD, firstTotal, 0);
+        assertEquals(2.0 * THREADS * VALUES_PER_THREAD, secondTotal, 0);
+    }
+}
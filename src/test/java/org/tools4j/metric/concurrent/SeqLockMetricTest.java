@@ -0,0 +1,114 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.concurrent;
+
+import org.junit.Test;
+import org.tools4j.metric.basic.AvgMetric;
+import org.tools4j.metric.basic.MeanVarianceMetric;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test for {@link SeqLockAvgMetric} and {@link SeqLockMeanVarianceMetric} reading values consistently while
+ * they are recorded.  The writer repeatedly records {@code 1, 2, ..., n} and resets, hence a consistent read of
+ * count {@code n} has mean {@code (n+1)/2} and variance {@code (n^2-1)/12}.
+ */
+public class SeqLockMetricTest {
+
+    private static final int VALUES_PER_RESET = 1000;
+    private static final long RUN_NANOS = 1_000_000_000;
+
+    private interface Reader {
+        void readAndVerify();
+    }
+
+    private static void runConcurrently(final Runnable writer, final Reader reader) throws InterruptedException {
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Thread readerThread = new Thread(() -> {
+            try {
+                while (running.get()) {
+                    reader.readAndVerify();
+                }
+            } catch (final Throwable t) {
+                failure.set(t);
+            }
+        });
+        readerThread.start();
+        final long end = System.nanoTime() + RUN_NANOS;
+        while (System.nanoTime() < end && failure.get() == null) {
+            writer.run();
+        }
+        running.set(false);
+        readerThread.join();
+        if (failure.get() != null) {
+            throw new AssertionError("Inconsistent read: " + failure.get(), failure.get());
+        }
+    }
+
+    @Test
+    public void avgIsReadConsistently() throws InterruptedException {
+        final SeqLockAvgMetric metric = new SeqLockAvgMetric();
+        final AvgMetric copy = new AvgMetric();
+        final long[] reads = {0};
+        runConcurrently(() -> {
+            for (int i = 1; i <= VALUES_PER_RESET; i++) {
+                metric.record(i);
+            }
+            metric.reset();
+        }, () -> {
+            metric.read(copy);
+            if (copy.count() == 0) {
+                assertTrue("avg: " + copy.avg(), Double.isNaN(copy.avg()));
+            } else {
+                assertEquals("avg for count " + copy.count(), (copy.count() + 1) / 2.0, copy.avg(), 0);
+            }
+            reads[0]++;
+        });
+        assertTrue(reads[0] > 0);
+    }
+
+    @Test
+    public void meanVarianceIsReadConsistently() throws InterruptedException {
+        final SeqLockMeanVarianceMetric metric = new SeqLockMeanVarianceMetric();
+        final MeanVarianceMetric copy = new MeanVarianceMetric();
+        runConcurrently(() -> {
+            for (int i = 1; i <= VALUES_PER_RESET; i++) {
+                metric.record(i);
+            }
+            metric.reset();
+        }, () -> {
+            metric.read(copy);
+            final long n = copy.count();
+            if (n > 0) {
+                assertEquals("mean for count " + n, (n + 1) / 2.0, copy.mean(), 1e-9 * n);
+                assertEquals("variance for count " + n, (n * n - 1) / 12.0, copy.variance(), 1e-9 * n * n);
+            }
+        });
+    }
+}
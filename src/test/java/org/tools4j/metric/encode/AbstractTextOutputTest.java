@@ -0,0 +1,116 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.encode;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit test for number formatting in {@link AbstractTextOutput}.
+ */
+public class AbstractTextOutputTest {
+
+    private final StringBuilderTextOutput output = new StringBuilderTextOutput();
+
+    private String print(final double value) {
+        output.output().setLength(0);
+        output.append(value);
+        return output.toString();
+    }
+
+    private String print(final long value) {
+        output.output().setLength(0);
+        output.append(value);
+        return output.toString();
+    }
+
+    @Test
+    public void printsLongs() {
+        assertEquals("0", print(0L));
+        assertEquals("-17", print(-17L));
+        assertEquals("9223372036854775807", print(Long.MAX_VALUE));
+        assertEquals("-9223372036854775808", print(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void printsSpecialDoubles() {
+        assertEquals("NaN", print(Double.NaN));
+        assertEquals("Infinity", print(Double.POSITIVE_INFINITY));
+        assertEquals("-Infinity", print(Double.NEGATIVE_INFINITY));
+        assertEquals("0.0", print(0.0));
+        assertEquals("-0.0", print(-0.0));
+    }
+
+    @Test
+    public void printsDoublesLikeDoubleToString() {
+        final double[] values = {1, 12, 0.1, 0.3, 1.0 / 3, 123.456, 1e-3, 1.5e-7, 9999999, 1e7, 1.5e20, 100,
+                Double.MAX_VALUE, Double.MIN_NORMAL, Math.PI, Math.E};
+        for (final double value : values) {
+            assertEquals(Double.toString(value), print(value));
+            assertEquals(Double.toString(-value), print(-value));
+        }
+    }
+
+    @Test
+    public void printsDoublesWithRoundTripPrecision() {
+        final Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            final double value;
+            switch (i % 4) {
+                case 0:
+                    value = Double.longBitsToDouble(random.nextLong());
+                    break;
+                case 1:
+                    value = random.nextDouble();
+                    break;
+                case 2:
+                    value = random.nextInt(1000000) / 1000.0;
+                    break;
+                default:
+                    value = random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20);
+                    break;
+            }
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                continue;
+            }
+            final String text = print(value);
+            assertEquals(text, value, Double.parseDouble(text), 0);
+        }
+    }
+
+    @Test
+    public void printsDoublesWithFixedDecimals() {
+        final StringBuilderTextOutput fixed = new StringBuilderTextOutput(new StringBuilder(), 6);
+        fixed.append(1.0 / 3).append(' ').append(2.5).append(' ').append(0.9999999).append(' ').append(1.5e20);
+        assertEquals("0.333333 2.5 1.0 1.5E20", fixed.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidDecimals() {
+        new StringBuilderTextOutput(new StringBuilder(), AbstractTextOutput.MAX_DECIMALS + 1);
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.mapped;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.tools4j.metric.encode.StringBuilderTextOutput;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.tools4j.metric.mapped.MappedMetricsFile.CAPACITY_OFFSET;
+import static org.tools4j.metric.mapped.MappedMetricsFile.COUNT_OFFSET;
+import static org.tools4j.metric.mapped.MappedMetricsFile.HEADER_LENGTH;
+import static org.tools4j.metric.mapped.MappedMetricsFile.NAME_LENGTH_OFFSET;
+import static org.tools4j.metric.mapped.MappedMetricsFile.TYPE_OFFSET;
+
+/**
+ * Unit test for {@link MappedMetricsFile} and {@link MappedMetricsReader}.
+ */
+public class MappedMetricsFileTest {
+
+    private File file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = File.createTempFile("metrics", ".map");
+    }
+
+    @After
+    public void deleteFile() {
+        assertTrue(file.delete());
+    }
+
+    private void overwrite(final long offset, final long value, final boolean isLong) throws IOException {
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            final MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                    randomAccessFile.length());
+            buffer.order(ByteOrder.nativeOrder());
+            if (isLong) {
+                buffer.putLong((int)offset, value);
+            } else {
+                buffer.putInt((int)offset, (int)value);
+            }
+            buffer.force();
+        }
+    }
+
+    @Test
+    public void readsMetricsWrittenToFile() throws IOException {
+        try (final MappedMetricsFile metrics = MappedMetricsFile.create(file, 4);
+             final MappedMetricsReader reader = MappedMetricsReader.open(file)) {
+            final MappedMetric orders = metrics.newMetric("orders", MappedMetricType.SUM);
+            final MappedMetric latency = metrics.newMetric("latency", MappedMetricType.MEAN_VARIANCE);
+            orders.record(1);
+            orders.record(2);
+            latency.record(2);
+            latency.record(4);
+            latency.record(6);
+            assertEquals(4, reader.capacity());
+            assertEquals(2, reader.count());
+            assertEquals("orders", reader.name(0));
+            assertEquals("latency", reader.name(1, new StringBuilderTextOutput()).toString());
+            assertEquals(MappedMetricType.SUM, reader.type(0));
+            assertEquals(MappedMetricType.MEAN_VARIANCE, reader.type(1));
+            final double[] values = new double[3];
+            assertEquals(1, reader.read(0, values));
+            assertEquals(3, values[0], 0);
+            assertEquals(3, reader.read(1, values));
+            assertEquals(3, values[0], 0);
+            assertEquals(4, values[1], 0);
+            assertEquals(8, values[2], 0);
+            assertEquals(4, latency.varianceUnbiased(), 0);
+            latency.reset();
+            reader.read(1, values);
+            assertEquals(0, values[0], 0);
+            assertEquals(Double.NaN, values[1], 0);
+        }
+    }
+
+    @Test
+    public void rejectsMetricsBeyondCapacity() throws IOException {
+        try (final MappedMetricsFile metrics = MappedMetricsFile.create(file, 1)) {
+            metrics.newMetric("first", MappedMetricType.MAX);
+            try {
+                metrics.newMetric("second", MappedMetricType.MAX);
+                fail("capacity exceeded");
+            } catch (final IllegalStateException e) {
+                //expected
+            }
+            try {
+                metrics.newMetric(new String(new char[MappedMetricsFile.MAX_NAME_LENGTH + 1]), MappedMetricType.MAX);
+                fail("name too long");
+            } catch (final IllegalArgumentException e) {
+                //expected
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsFileWithoutHeader() throws IOException {
+        try (final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(HEADER_LENGTH);
+        }
+        MappedMetricsReader.open(file).close();
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsFileShorterThanCapacity() throws IOException {
+        MappedMetricsFile.create(file, 2).close();
+        overwrite(CAPACITY_OFFSET, 1000, false);
+        MappedMetricsReader.open(file).close();
+    }
+
+    @Test
+    public void validatesCorruptedEntries() throws IOException {
+        try (final MappedMetricsFile metrics = MappedMetricsFile.create(file, 2)) {
+            metrics.newMetric("orders", MappedMetricType.SUM).record(1);
+        }
+        overwrite(COUNT_OFFSET, Long.MAX_VALUE, true);
+        overwrite(HEADER_LENGTH + TYPE_OFFSET, 99, false);
+        overwrite(HEADER_LENGTH + NAME_LENGTH_OFFSET, -1, false);
+        try (final MappedMetricsReader reader = MappedMetricsReader.open(file)) {
+            assertEquals(2, reader.count());
+            try {
+                reader.type(0);
+                fail("invalid type");
+            } catch (final IllegalStateException e) {
+                //expected
+            }
+            try {
+                reader.name(0);
+                fail("invalid name length");
+            } catch (final IllegalStateException e) {
+                //expected
+            }
+        }
+    }
+
+    @Test
+    public void readsValuesConsistentlyWhileRecording() throws Exception {
+        try (final MappedMetricsFile metrics = MappedMetricsFile.create(file, 1);
+             final MappedMetricsReader reader = MappedMetricsReader.open(file)) {
+            final MappedMetric metric = metrics.newMetric("avg", MappedMetricType.AVG);
+            final AtomicBoolean running = new AtomicBoolean(true);
+            final Thread writer = new Thread(() -> {
+                while (running.get()) {
+                    for (int i = 1; i <= 1000; i++) {
+                        metric.record(i);
+                    }
+                    metric.reset();
+                }
+            });
+            writer.start();
+            try {
+                final double[] values = new double[2];
+                final long end = System.nanoTime() + 500_000_000;
+                while (System.nanoTime() < end) {
+                    reader.read(0, values);
+                    if (values[0] > 0) {
+                        assertEquals("avg for count " + values[0], (values[0] + 1) / 2, values[1], 0);
+                    }
+                }
+            } finally {
+                running.set(false);
+                writer.join();
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.openmetrics;
+
+import org.junit.Test;
+import org.tools4j.metric.basic.HistogramMetric;
+import org.tools4j.metric.basic.SumMetric;
+import org.tools4j.metric.encode.AbstractTextOutput;
+import org.tools4j.metric.repository.DefaultDiscriminatingRepository;
+import org.tools4j.metric.repository.MapRepository;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit test for {@link OpenMetricsRenderer}.
+ */
+public class OpenMetricsRendererTest {
+
+    private enum Venue {XLON, XNYS}
+    private enum Side {BUY, SELL}
+
+    private static String toString(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void rendersCountersAndGauges() {
+        final MapRepository<String, SumMetric> orders = new MapRepository<>(new LinkedHashMap<>(),
+                k -> new SumMetric());
+        orders.getOrCreate("XLON").record(3);
+        orders.getOrCreate("X\"NY\\S\n").record(0.5);
+        final OpenMetricsRenderer renderer = new OpenMetricsRenderer()
+                .counter("orders", "Orders received", orders, "venue", SumMetric::sum)
+                .gauge("pending", "", orders, "venue", m -> -m.sum());
+        assertEquals("# TYPE orders counter\n" +
+                "# HELP orders Orders received\n" +
+                "orders_total{venue=\"XLON\"} 3.0\n" +
+                "orders_total{venue=\"X\\\"NY\\\\S\\n\"} 0.5\n" +
+                "# TYPE pending gauge\n" +
+                "pending{venue=\"XLON\"} -3.0\n" +
+                "pending{venue=\"X\\\"NY\\\\S\\n\"} -0.5\n" +
+                "# EOF\n", toString(renderer.render()));
+    }
+
+    @Test
+    public void rendersHistogramBucketsCountAndSum() {
+        final MapRepository<Integer, HistogramMetric> latencies = new MapRepository<>(new LinkedHashMap<>(),
+                k -> new HistogramMetric());
+        for (int i = 1; i <= 100; i++) {
+            latencies.getOrCreate(7).record(i);
+        }
+        final OpenMetricsRenderer renderer = new OpenMetricsRenderer()
+                .histogram("latency_micros", "Order latency", latencies, "shard", 10, 50, 99);
+        assertEquals("# TYPE latency_micros histogram\n" +
+                "# HELP latency_micros Order latency\n" +
+                "latency_micros_bucket{shard=\"7\",le=\"10.0\"} 10\n" +
+                "latency_micros_bucket{shard=\"7\",le=\"50.0\"} 50\n" +
+                "latency_micros_bucket{shard=\"7\",le=\"99.0\"} 99\n" +
+                "latency_micros_bucket{shard=\"7\",le=\"+Inf\"} 100\n" +
+                "latency_micros_count{shard=\"7\"} 100\n" +
+                "latency_micros_sum{shard=\"7\"} 5050.0\n" +
+                "# EOF\n", toString(renderer.render()));
+    }
+
+    @Test
+    public void rendersDiscriminatedSamples() {
+        final DefaultDiscriminatingRepository<Venue, Side, SumMetric> orders =
+                DefaultDiscriminatingRepository.forEnums(Venue.class, Side.class, SumMetric::new);
+        orders.getOrCreate(Venue.XLON).record(2);
+        orders.getOrCreate(Venue.XLON, Side.SELL).record(1);
+        final OpenMetricsRenderer renderer = new OpenMetricsRenderer()
+                .counter("orders", "", orders, "venue", "side", SumMetric::sum);
+        assertEquals("# TYPE orders counter\n" +
+                "orders_total{venue=\"XLON\"} 2.0\n" +
+                "orders_total{venue=\"XLON\",side=\"SELL\"} 1.0\n" +
+                "# EOF\n", toString(renderer.render()));
+    }
+
+    @Test
+    public void rendersUtf8AndGrowsBuffer() {
+        final MapRepository<String, SumMetric> orders = new MapRepository<>(new LinkedHashMap<>(),
+                k -> new SumMetric());
+        final StringBuilder expected = new StringBuilder("# TYPE orders counter\n");
+        for (int i = 0; i < 100; i++) {
+            orders.getOrCreate("Z\u00fcrich-" + i).record(i);
+            expected.append("orders_total{venue=\"Z\u00fcrich-").append(i).append("\"} ").append((double)i)
+                    .append('\n');
+        }
+        expected.append("# EOF\n");
+        final OpenMetricsRenderer renderer = new OpenMetricsRenderer(16, AbstractTextOutput.DEFAULT_DECIMALS)
+                .counter("orders", "", orders, "venue", SumMetric::sum);
+        assertEquals(expected.toString(), toString(renderer.render()));
+        assertEquals(expected.toString(), toString(renderer.render()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidNames() {
+        new OpenMetricsRenderer().counter("1orders", "", new MapRepository<>(new LinkedHashMap<>(),
+                k -> new SumMetric()), "venue", SumMetric::sum);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDescendingBounds() {
+        new OpenMetricsRenderer().histogram("latency", "", new MapRepository<>(new LinkedHashMap<>(),
+                k -> new HistogramMetric()), "venue", 10, 1);
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.openmetrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit test for {@link OpenMetricsServer}.
+ */
+public class OpenMetricsServerTest {
+
+    private final AtomicInteger renders = new AtomicInteger();
+    private OpenMetricsServer server;
+
+    @Before
+    public void start() throws IOException {
+        final OpenMetricsRenderer renderer = new OpenMetricsRenderer().beforeRender(renders::incrementAndGet);
+        server = OpenMetricsServer.start(renderer, new InetSocketAddress("127.0.0.1", 0),
+                OpenMetricsServer.DEFAULT_PATH, 1, TimeUnit.HOURS);
+    }
+
+    @After
+    public void stop() {
+        server.close();
+    }
+
+    private HttpURLConnection connect(final String method) throws IOException {
+        final URL url = new URL("http://127.0.0.1:" + server.address().getPort() + OpenMetricsServer.DEFAULT_PATH);
+        final HttpURLConnection connection = (HttpURLConnection)url.openConnection();
+        connection.setRequestMethod(method);
+        return connection;
+    }
+
+    private static String read(final HttpURLConnection connection) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final InputStream in = connection.getInputStream()) {
+            final byte[] buffer = new byte[1024];
+            for (int n; (n = in.read(buffer)) >= 0; ) {
+                bytes.write(buffer, 0, n);
+            }
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void servesCachedSnapshot() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            final HttpURLConnection connection = connect("GET");
+            assertEquals(200, connection.getResponseCode());
+            assertEquals(OpenMetricsRenderer.CONTENT_TYPE, connection.getContentType());
+            assertEquals("# EOF\n", read(connection));
+        }
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    public void headDoesNotRender() throws IOException {
+        final HttpURLConnection connection = connect("HEAD");
+        assertEquals(200, connection.getResponseCode());
+        assertEquals(OpenMetricsRenderer.CONTENT_TYPE, connection.getContentType());
+        assertEquals(0, renders.get());
+    }
+
+    @Test
+    public void rejectsOtherMethods() throws IOException {
+        final HttpURLConnection connection = connect("DELETE");
+        assertEquals(405, connection.getResponseCode());
+        assertEquals("GET, HEAD", connection.getHeaderField("Allow"));
+    }
+}
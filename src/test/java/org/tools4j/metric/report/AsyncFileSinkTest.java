@@ -0,0 +1,244 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 tools4j.org (Marco Terzer)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.metric.report;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.tools4j.metric.report.AsyncFileSink.BackPressure;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test for {@link AsyncFileSink}.
+ */
+public class AsyncFileSinkTest {
+
+    private Path dir;
+    private Path file;
+
+    @Before
+    public void createDir() throws IOException {
+        dir = Files.createTempDirectory("metrics");
+        file = dir.resolve("metrics.log");
+    }
+
+    @After
+    public void deleteDir() throws IOException {
+        try (final Stream<Path> files = Files.list(dir)) {
+            for (final Path path : files.collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    /**
+     * @return the lines of rolled files in the order they were rolled followed by the lines of the current file
+     */
+    private List<String> lines() throws IOException {
+        final List<String> lines = new ArrayList<>();
+        try (final Stream<Path> files = Files.list(dir)) {
+            for (final Path path : files.sorted().collect(Collectors.toList())) {
+                if (!path.equals(file)) {
+                    lines.addAll(Files.readAllLines(path));
+                }
+            }
+        }
+        if (Files.exists(file)) {
+            lines.addAll(Files.readAllLines(file));
+        }
+        return lines;
+    }
+
+    @Test
+    public void closeWritesAllPrintedLines() throws IOException {
+        final AsyncFileSink sink = AsyncFileSink.open(file, 8, 32, BackPressure.BLOCK, 0, 0, TimeUnit.SECONDS);
+        for (int i = 0; i < 1000; i++) {
+            final int line = i;
+            assertTrue(sink.print(output -> output.append("line=").append(line)));
+        }
+        sink.close();
+        final List<String> lines = lines();
+        assertEquals(1000, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            assertEquals("line=" + i, lines.get(i));
+        }
+        assertEquals(0, sink.droppedCount());
+        assertEquals(0, sink.errorCount());
+        assertEquals(Files.size(file), sink.writtenBytes());
+        assertFalse(sink.print(output -> output.append("after close")));
+        assertEquals(1, sink.droppedCount());
+    }
+
+    @Test
+    public void truncatesLongLines() throws IOException {
+        final AsyncFileSink sink = AsyncFileSink.open(file, 4, 8, BackPressure.BLOCK, 0, 0, TimeUnit.SECONDS);
+        sink.print(output -> output.append("0123456789"));
+        sink.print(output -> output.append("short"));
+        sink.close();
+        final List<String> lines = lines();
+        assertEquals(2, lines.size());
+        assertEquals("0123456", lines.get(0));
+        assertEquals("short", lines.get(1));
+        assertEquals(1, sink.truncatedCount());
+    }
+
+    @Test
+    public void concurrentProducersLoseNoLines() throws Exception {
+        final int threads = 4;
+        final int linesPerThread = 20000;
+        final AsyncFileSink sink = AsyncFileSink.open(file, 64, 32, BackPressure.BLOCK, 0, 0, TimeUnit.SECONDS);
+        runProducers(threads, thread -> {
+            for (int i = 0; i < linesPerThread; i++) {
+                final int line = i;
+                sink.print(output -> output.append(thread).append(' ').append(line));
+            }
+        });
+        sink.close();
+        final int[] next = new int[threads];
+        for (final String line : lines()) {
+            final String[] parts = line.split(" ");
+            final int thread = Integer.parseInt(parts[0]);
+            assertEquals(line, next[thread]++, Integer.parseInt(parts[1]));
+        }
+        for (int thread = 0; thread < threads; thread++) {
+            assertEquals(linesPerThread, next[thread]);
+        }
+        assertEquals(0, sink.droppedCount());
+    }
+
+    @Test
+    public void reportsAreNeverInterleaved() throws Exception {
+        final int threads = 4;
+        final int reportsPerThread = 500;
+        final int linesPerReport = 10;
+        final AsyncFileSink sink = AsyncFileSink.open(file, 64, 16, BackPressure.BLOCK, 0, 0, TimeUnit.SECONDS);
+        runProducers(threads, thread -> {
+            final StringBuilder report = new StringBuilder();
+            for (int i = 0; i < linesPerReport; i++) {
+                report.append("report of ").append(thread).append('\n');
+            }
+            final byte[] bytes = report.toString().getBytes(StandardCharsets.US_ASCII);
+            for (int i = 0; i < reportsPerThread; i++) {
+                sink.write(ByteBuffer.wrap(bytes));
+            }
+        });
+        sink.close();
+        final List<String> lines = lines();
+        assertEquals(threads * reportsPerThread * linesPerReport, lines.size());
+        for (int i = 0; i < lines.size(); i += linesPerReport) {
+            for (int j = 1; j < linesPerReport; j++) {
+                assertEquals("line " + (i + j), lines.get(i), lines.get(i + j));
+            }
+        }
+    }
+
+    @Test
+    public void linesPrintedConcurrentlyWithCloseAreWrittenOrCounted() throws Exception {
+        final int threads = 4;
+        final AsyncFileSink sink = AsyncFileSink.open(file, 16, 32, BackPressure.DROP, 0, 0, TimeUnit.SECONDS);
+        final AtomicLong printed = new AtomicLong();
+        final CountDownLatch started = new CountDownLatch(threads);
+        final List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final Thread producer = new Thread(() -> {
+                started.countDown();
+                for (int i = 0; i < 100000; i++) {
+                    sink.print(output -> output.append("line"));
+                    printed.incrementAndGet();
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        started.await();
+        sink.close();
+        for (final Thread producer : producers) {
+            producer.join();
+        }
+        assertEquals(printed.get(), lines().size() + sink.droppedCount());
+    }
+
+    @Test
+    public void rollsFilesWhenMaxSizeIsExceeded() throws IOException {
+        final AsyncFileSink sink = AsyncFileSink.open(file, 8, 32, BackPressure.BLOCK, 2000, 0, TimeUnit.SECONDS);
+        for (int i = 0; i < 1000; i++) {
+            final int line = i;
+            sink.print(output -> output.append("line=").append(line));
+        }
+        sink.close();
+        assertTrue("roll count: " + sink.rollCount(), sink.rollCount() > 0);
+        final List<String> lines = lines();
+        assertEquals(1000, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            assertEquals("line=" + i, lines.get(i));
+        }
+        assertEquals(0, sink.errorCount());
+    }
+
+    private interface Producer {
+        void run(int thread) throws Exception;
+    }
+
+    private static void runProducers(final int threads, final Producer producer) throws Exception {
+        final List<Thread> producers = new ArrayList<>();
+        final List<Exception> failures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            final Thread producerThread = new Thread(() -> {
+                try {
+                    producer.run(thread);
+                } catch (final Exception e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            producerThread.start();
+            producers.add(producerThread);
+        }
+        for (final Thread producerThread : producers) {
+            producerThread.join();
+        }
+        if (!failures.isEmpty()) {
+            throw failures.get(0);
+        }
+    }
+}